@@ -20,59 +20,182 @@ package com.github.rosjava_actionlib;
 import actionlib_msgs.GoalID;
 import actionlib_msgs.GoalStatus;
 import actionlib_msgs.GoalStatusArray;
-import com.google.common.base.Stopwatch;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.ros.internal.message.Message;
-import org.ros.master.client.MasterStateClient;
-import org.ros.master.client.TopicSystemState;
 import org.ros.message.Duration;
 import org.ros.node.ConnectedNode;
-import org.ros.node.topic.Publisher;
-import org.ros.node.topic.Subscriber;
 
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Client implementation for actionlib.
  * This class encapsulates the communication with an actionlib server.
  * Can accept more than one Action Listeners
+ * The clients of the same action in a node share their publishers and subscribers, see {@link ActionClientTransport}.
  *
  * @author Ernesto Corbellini ecorbellini@ekumenlabs.com
  * @author Spyros Koukas
  */
 public final class ActionClient<T_ACTION_GOAL extends Message,
         T_ACTION_FEEDBACK extends Message,
-        T_ACTION_RESULT extends Message> {
+        T_ACTION_RESULT extends Message> implements AutoCloseable {
+
+    /**
+     * What {@link #sendGoal(Message, String, InFlightPolicy)} does when the maximum number of in flight goals is reached.
+     *
+     * @see #setMaxInFlightGoals(int)
+     */
+    public enum InFlightPolicy {
+        /**
+         * Block the caller until one of the goals in flight reaches a terminal state.
+         */
+        BLOCK,
+        /**
+         * Throw a {@link RejectedExecutionException} without sending the goal.
+         */
+        FAIL_FAST,
+        /**
+         * Return the future immediately, the goal is sent when one of the goals in flight reaches a terminal state.
+         */
+        ENQUEUE
+    }
+
+    /**
+     * The resources of a client that are released by {@link #disconnect()}, or by the {@link ResourceCleaner} if the client is collected without being disconnected.
+     * It must not reference the client.
+     */
+    private static final class ClientResources<T_ACTION_GOAL extends Message,
+            T_ACTION_FEEDBACK extends Message,
+            T_ACTION_RESULT extends Message> implements Runnable {
+        private final String actionName;
+        private final ActionClientTransport<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> transport;
+        private final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference;
+        private final HashedWheelTimer deadlineTimer;
+        private final AtomicInteger feedbackConsumers;
+        private volatile boolean disconnected = false;
+
+        private ClientResources(final String actionName
+                , final ActionClientTransport<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> transport
+                , final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference
+                , final HashedWheelTimer deadlineTimer
+                , final AtomicInteger feedbackConsumers) {
+            this.actionName = actionName;
+            this.transport = transport;
+            this.clientReference = clientReference;
+            this.deadlineTimer = deadlineTimer;
+            this.feedbackConsumers = feedbackConsumers;
+        }
+
+        @Override
+        public final void run() {
+            if (!this.disconnected && LOGGER.isWarnEnabled()) {
+                LOGGER.warn("ActionClient of action:[" + this.actionName + "] was not disconnected before it became unreachable");
+            }
+            this.deadlineTimer.stop();
+            this.transport.removeFeedbackConsumers(this.feedbackConsumers.getAndSet(0));
+            this.transport.detach(this.clientReference);
+        }
+    }
+
+    /**
+     * Runs a timer action of the client, does not keep the client reachable
+     */
+    private static final class ClientTimerTask<T_ACTION_GOAL extends Message,
+            T_ACTION_FEEDBACK extends Message,
+            T_ACTION_RESULT extends Message> implements Runnable {
+        private final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference;
+        private final Consumer<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> timerAction;
+
+        /**
+         * @param clientReference
+         * @param timerAction     called with the client, it must not capture the client
+         */
+        private ClientTimerTask(final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference
+                , final Consumer<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> timerAction) {
+            this.clientReference = clientReference;
+            this.timerAction = timerAction;
+        }
+
+        @Override
+        public final void run() {
+            // the timer of a collected client is stopped by the ResourceCleaner
+            final ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> client = this.clientReference.get();
+            if (client != null) {
+                this.timerAction.accept(client);
+            }
+        }
+    }
 
     private static final Log LOGGER = LogFactory.getLog(ActionClient.class);
     private final ClientGoalManager<T_ACTION_GOAL> goalManager;
     private final String actionGoalType;
     private final String actionResultType;
     private final String actionFeedbackType;
-    private Publisher<T_ACTION_GOAL> goalPublisher = null;
-    private Publisher<GoalID> cancelPublisher = null;
-    private Subscriber<T_ACTION_RESULT> serverResultSubscriber = null;
-    private Subscriber<T_ACTION_FEEDBACK> serverFeedbackSubscriber = null;
-    private Subscriber<GoalStatusArray> serverStatusSubscriber = null;
+    private final ActionClientTransport<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> transport;
     private String actionName;
-    private static final boolean LATCH_MODE = false;
     //    private final List<ActionClientListener<T_ACTION_FEEDBACK,T_ACTION_RESULT>> callbackTargets = new CopyOnWriteArrayList<>();
     private final List<ActionClientResultListener<T_ACTION_RESULT>> callbackResultTargets = new CopyOnWriteArrayList<>();
     private final List<ActionClientFeedbackListener<T_ACTION_FEEDBACK>> callbackFeedbackTargets = new CopyOnWriteArrayList<>();
     private final List<ActionClientStatusListener> callbackStatusTargets = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> goalIdToFutureMap = new ConcurrentHashMap<>();
+    /**
+     * The feedback listeners and the feedback listeners of the futures, the feedback topic is subscribed only while there are any
+     */
+    private final AtomicInteger feedbackConsumers = new AtomicInteger(0);
 
     private final GoalIDGenerator goalIdGenerator;
-    private volatile boolean statusSubscriberFlag = false;
-    private final MasterStateClient masterStateClient;
+    private final InFlightGoalWindow inFlightGoalWindow = new InFlightGoalWindow();
+    /**
+     * Resolution of the goal deadlines
+     */
+    private static final long DEADLINE_TIMER_TICK_MILLIS = 10;
+    /**
+     * With the tick of 10ms a round of the wheel is about 5 seconds
+     */
+    private static final int DEADLINE_TIMER_WHEEL_SIZE = 512;
+    private final HashedWheelTimer deadlineTimer;
+    private volatile InFlightPolicy inFlightPolicy = InFlightPolicy.BLOCK;
+    /**
+     * The time to wait for the first status of a goal before publishing it again, 0 when goals are never published again
+     */
+    private volatile long goalAckTimeoutNanos = 0;
+    private volatile int maxGoalResends = 0;
+    private final AtomicLong goalResendCount = new AtomicLong(0);
+    /**
+     * The goals missing from this many consecutive status arrays are lost, 0 to never lose them this way
+     */
+    private volatile int maxMissedStatusArrays = 0;
+    /**
+     * The goals are lost if no status array is received for this long, 0 to never lose them this way
+     */
+    private volatile long serverSilenceTimeoutNanos = 0;
+    private final AtomicBoolean serverSilenceCheckScheduled = new AtomicBoolean(false);
+    private volatile long lastStatusArrayNanos = 0;
+    /**
+     * The timer tasks reference the client only through this, so that a client that is not disconnected can still be collected
+     */
+    private final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference;
+    private final ClientResources<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> resources;
+    private final Cleaner.Cleanable cleanable;
 
     /**
      * Constructor for an ActionClient object.
@@ -93,15 +216,18 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
             , final String actionGoalType
             , final String actionFeedbackType
             , final String actionResultType) {
-        this.masterStateClient = new MasterStateClient(connectedNode, connectedNode.getMasterUri());
-
         this.actionName = actionName;
         this.actionGoalType = actionGoalType;
         this.actionFeedbackType = actionFeedbackType;
         this.actionResultType = actionResultType;
         this.goalIdGenerator = new GoalIDGenerator(connectedNode);
-        this.connect(connectedNode);
-        this.goalManager = new ClientGoalManager(new ActionGoal<T_ACTION_GOAL>());
+        this.goalManager = new ClientGoalManager<>();
+        this.deadlineTimer = new HashedWheelTimer("ActionClient-deadlines-" + actionName, DEADLINE_TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS, DEADLINE_TIMER_WHEEL_SIZE);
+        // attached last, messages may be delivered to the client as soon as it is attached
+        this.clientReference = new WeakReference<>(this);
+        this.transport = ActionClientTransport.attach(connectedNode, actionName, actionGoalType, actionFeedbackType, actionResultType, this.clientReference);
+        this.resources = new ClientResources<>(actionName, this.transport, this.clientReference, this.deadlineTimer, this.feedbackConsumers);
+        this.cleanable = ResourceCleaner.register(this, this.resources);
     }
 
     /**
@@ -112,6 +238,7 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
             this.callbackStatusTargets.add(target);
             this.callbackFeedbackTargets.add(target);
             this.callbackResultTargets.add(target);
+            this.feedbackConsumerAdded();
         }
     }
 
@@ -126,6 +253,57 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
         }
     }
 
+    /**
+     * Route the results and feedback of the goal to the future.
+     *
+     * @param goalId
+     * @param future
+     */
+    final void registerFuture(final String goalId, final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future) {
+        this.goalIdToFutureMap.put(goalId, future);
+    }
+
+    /**
+     * @param goalId
+     * @param future the future to unregister, if it is still registered for the goal
+     */
+    final void unregisterFuture(final String goalId, final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future) {
+        this.goalIdToFutureMap.remove(goalId, future);
+    }
+
+    /**
+     * Add a listener whose callbacks run on the given executor instead of the subscriber thread.
+     *
+     * @param target         the listener to add
+     * @param executor       the executor on which the callbacks of the listener will run
+     * @param capacity       the maximum number of feedback and status messages queued for the listener, results are always queued
+     * @param overflowPolicy what to do with a message when the queue of the listener is full
+     *
+     * @return the added listener, which provides the queue metrics and should be used to remove the listener
+     */
+    public final AsyncActionClientListener<T_ACTION_FEEDBACK, T_ACTION_RESULT> addAsyncListener(final ActionClientListener<T_ACTION_FEEDBACK, T_ACTION_RESULT> target
+            , final Executor executor
+            , final int capacity
+            , final AsyncActionClientListener.OverflowPolicy overflowPolicy) {
+        final AsyncActionClientListener<T_ACTION_FEEDBACK, T_ACTION_RESULT> asyncListener = new AsyncActionClientListener<>(target, executor, capacity, overflowPolicy);
+        this.addListener(asyncListener);
+        return asyncListener;
+    }
+
+    /**
+     * Add a feedback listener that only receives the newest feedback of each goal, on the given executor.
+     *
+     * @param target   the feedback listener to add
+     * @param executor the executor on which the listener will run
+     *
+     * @return the added listener, which should be used to remove the listener
+     */
+    public final ConflatingFeedbackListener<T_ACTION_FEEDBACK> addConflatingFeedbackListener(final ActionClientFeedbackListener<T_ACTION_FEEDBACK> target, final Executor executor) {
+        final ConflatingFeedbackListener<T_ACTION_FEEDBACK> conflatingListener = new ConflatingFeedbackListener<>(target, executor);
+        this.addListener(conflatingListener);
+        return conflatingListener;
+    }
+
     /**
      * @param target the status listener
      */
@@ -141,6 +319,7 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
     public final void addListener(final ActionClientFeedbackListener target) {
         if (target != null) {
             this.callbackFeedbackTargets.add(target);
+            this.feedbackConsumerAdded();
         }
     }
 
@@ -160,10 +339,62 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
     public final void removeListener(final ActionClientListener target) {
 
         callbackStatusTargets.remove(target);
-        callbackFeedbackTargets.remove(target);
+        if (callbackFeedbackTargets.remove(target)) {
+            this.feedbackConsumerRemoved();
+        }
         callbackResultTargets.remove(target);
     }
 
+    /**
+     * @param target the status listener to remove
+     */
+    public final void removeListener(final ActionClientStatusListener target) {
+        this.callbackStatusTargets.remove(target);
+    }
+
+    /**
+     * @param target the feedback listener to remove
+     */
+    public final void removeListener(final ActionClientFeedbackListener target) {
+        if (this.callbackFeedbackTargets.remove(target)) {
+            this.feedbackConsumerRemoved();
+        }
+    }
+
+    /**
+     * A feedback consumer is registered, the feedback topic is subscribed with the first consumer.
+     */
+    final void feedbackConsumerAdded() {
+        this.feedbackConsumers.incrementAndGet();
+        this.transport.addFeedbackConsumers(1);
+    }
+
+    /**
+     * A feedback consumer is removed, the feedback topic is unsubscribed after the last consumer.
+     */
+    final void feedbackConsumerRemoved() {
+        this.feedbackConsumersRemoved(1);
+    }
+
+    /**
+     * @param removedConsumers the number of removed feedback consumers
+     */
+    final void feedbackConsumersRemoved(final int removedConsumers) {
+        if (removedConsumers > 0) {
+            final int previousConsumers = this.feedbackConsumers.getAndUpdate(consumers -> Math.max(0, consumers - removedConsumers));
+            if (previousConsumers > 0) {
+                this.transport.removeFeedbackConsumers(Math.min(previousConsumers, removedConsumers));
+            }
+        }
+    }
+
+    /**
+     * @param target the result listener to remove
+     */
+    public final void removeListener(final ActionClientResultListener target) {
+        this.callbackResultTargets.remove(target);
+    }
+
     /**
      * Publish an action goal to the server. The type of the action goal message
      * is dependent on the application.
@@ -175,22 +406,375 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
      * @return
      */
     public final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> sendGoal(final T_ACTION_GOAL agMessage, final String id) {
+        return this.sendGoal(agMessage, id, this.inFlightPolicy);
+    }
+
+    /**
+     * Publish an action goal to the server, applying the given policy if the maximum number of in flight goals is reached.
+     *
+     * @param agMessage      The action goal message. With {@link InFlightPolicy#ENQUEUE} the message may be published later,
+     *                       so it should not be modified after this call.
+     * @param id             The ID for the goal, if blank it will be autogenerated.
+     * @param inFlightPolicy what to do if the maximum number of in flight goals is reached
+     *
+     * @return
+     *
+     * @throws RejectedExecutionException if the goal is not sent because of {@link InFlightPolicy#FAIL_FAST},
+     *                                    or because the thread was interrupted while blocked
+     * @see #setMaxInFlightGoals(int)
+     */
+    public final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> sendGoal(final T_ACTION_GOAL agMessage, final String id, final InFlightPolicy inFlightPolicy) {
+        return this.sendGoal(agMessage, id, inFlightPolicy, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param agMessage
+     * @param id
+     * @param inFlightPolicy
+     * @param blockTimeoutNanos the maximum time to block with {@link InFlightPolicy#BLOCK}, {@link Long#MAX_VALUE} to block until a slot is available
+     *
+     * @return
+     */
+    private final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> sendGoal(final T_ACTION_GOAL agMessage, final String id, final InFlightPolicy inFlightPolicy, final long blockTimeoutNanos) {
+        Objects.requireNonNull(inFlightPolicy);
         final GoalID gid = getGoalId(agMessage);
         if (StringUtils.isBlank(id)) {
             this.goalIdGenerator.generateID(gid);
         } else {
             gid.setId(id);
         }
+        final String goalId = gid.getId();
+
+        switch (inFlightPolicy) {
+            case FAIL_FAST:
+                if (!this.inFlightGoalWindow.tryAcquire(goalId)) {
+                    throw new RejectedExecutionException("Maximum in flight goals:" + this.inFlightGoalWindow.getMaxInFlightGoals() + " reached for action:" + this.actionName);
+                }
+                break;
+            case BLOCK:
+                try {
+                    if (blockTimeoutNanos == Long.MAX_VALUE) {
+                        this.inFlightGoalWindow.acquire(goalId);
+                    } else if (!this.inFlightGoalWindow.acquire(goalId, blockTimeoutNanos)) {
+                        throw new RejectedExecutionException("Deadline passed while waiting to send goal:" + goalId + " for action:" + this.actionName);
+                    }
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting to send goal:" + goalId + " for action:" + this.actionName, ie);
+                }
+                break;
+            case ENQUEUE:
+            default:
+                break;
+        }
+
+        final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> actionFuture = ActionClientFuture.createFromGoal(this, agMessage);
+        if (inFlightPolicy == InFlightPolicy.ENQUEUE) {
+            this.inFlightGoalWindow.acquireOrEnqueue(goalId, () -> this.sendGoalWire(agMessage));
+        } else {
+            this.sendGoalWire(agMessage);
+        }
+        return actionFuture;
+    }
+
+    /**
+     * Publish an action goal to the server with an autogenerated id and a deadline.
+     * If the result is not received before the deadline, the goal is cancelled, it is no longer tracked, its in flight slot is released
+     * and the future fails with a {@link TimeoutException}.
+     * The deadline includes the time spent waiting for an in flight slot.
+     * The deadlines of all the goals of a client share a single timer thread.
+     *
+     * @param agMessage The action goal message.
+     * @param timeout   the time the goal has to complete, measured from now
+     *
+     * @return
+     *
+     * @throws RejectedExecutionException if the goal is not sent because of the {@link InFlightPolicy},
+     *                                    or because the deadline passed while blocked waiting for an in flight slot
+     * @see #sendGoal(Message)
+     */
+    public final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> sendGoalWithTimeout(final T_ACTION_GOAL agMessage, final Duration timeout) {
+        Objects.requireNonNull(timeout);
+        final long timeoutNanos = Math.max(0, timeout.totalNsecs());
+        final long startNanos = System.nanoTime();
+        final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> actionFuture = this.sendGoal(agMessage, null, this.inFlightPolicy, timeoutNanos);
+        final String goalId = getGoalId(agMessage).getId();
+        final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future = this.goalIdToFutureMap.get(goalId);
+        if (future != null) {
+            final long remainingNanos = Math.max(0, timeoutNanos - (System.nanoTime() - startNanos));
+            final HashedWheelTimer.Timeout deadline = this.deadlineTimer.schedule(new ClientTimerTask<>(this.clientReference, client -> client.goalTimedOut(goalId, timeout)), remainingNanos, TimeUnit.NANOSECONDS);
+            future.toCompletionStage().whenComplete((result, throwable) -> deadline.cancel());
+        }
+        return actionFuture;
+    }
+
+    /**
+     * The deadline of the goal has passed. A goal waiting for an in flight slot is dropped, a sent goal is cancelled on the server,
+     * either way it is no longer tracked and its slot is released.
+     *
+     * @param goalId
+     * @param timeout
+     */
+    private final void goalTimedOut(final String goalId, final Duration timeout) {
+        final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future = this.goalIdToFutureMap.get(goalId);
+        if (future != null && future.timedOut(new TimeoutException("Goal:" + goalId + " of action:" + this.actionName + " did not complete within " + timeout))) {
+            if (!this.inFlightGoalWindow.removePending(goalId)) {
+                future.cancel(true);
+            }
+            this.goalManager.removeGoal(goalId);
+            this.inFlightGoalWindow.release(goalId);
+        }
+    }
+
+    /**
+     * Send a batch of goals in one pass. Every goal gets an autogenerated id, is tracked and is published.
+     * The goals are admitted with {@link InFlightPolicy#ENQUEUE}, so a batch larger than the maximum in flight goals never blocks
+     * and is published as slots free up.
+     *
+     * @param goals the action goal messages, they should not be modified after this call
+     *
+     * @return the futures of the goals, which can be awaited all together or for the first result
+     *
+     * @throws IllegalArgumentException if there are no goals
+     */
+    public final ActionFutureGroup<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> sendGoals(final Collection<T_ACTION_GOAL> goals) {
+        Objects.requireNonNull(goals);
+        if (goals.isEmpty()) {
+            throw new IllegalArgumentException("No goals to send for action:" + this.actionName);
+        }
+        for (final T_ACTION_GOAL goal : goals) {
+            this.goalIdGenerator.generateID(getGoalId(goal));
+        }
+        final List<ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> futures = ActionClientFuture.createFromGoals(this, goals);
+        for (final T_ACTION_GOAL goal : goals) {
+            this.inFlightGoalWindow.acquireOrEnqueue(getGoalId(goal).getId(), () -> this.sendGoalWire(goal));
+        }
+        return new ActionFutureGroup<>(futures);
+    }
+
+    /**
+     * Limit the number of goals that are sent and have not received a result yet.
+     * By default the number of in flight goals is unlimited.
+     *
+     * @param maxInFlightGoals the maximum number of in flight goals, zero or negative for no limit
+     */
+    public final void setMaxInFlightGoals(final int maxInFlightGoals) {
+        this.inFlightGoalWindow.setMaxInFlightGoals(maxInFlightGoals);
+    }
+
+    /**
+     * @return the maximum number of in flight goals, zero for no limit
+     */
+    public final int getMaxInFlightGoals() {
+        return this.inFlightGoalWindow.getMaxInFlightGoals();
+    }
+
+    /**
+     * @param inFlightPolicy the policy used by {@link #sendGoal(Message)} and {@link #sendGoal(Message, String)}, by default {@link InFlightPolicy#BLOCK}
+     */
+    public final void setInFlightPolicy(final InFlightPolicy inFlightPolicy) {
+        Objects.requireNonNull(inFlightPolicy);
+        this.inFlightPolicy = inFlightPolicy;
+    }
+
+    /**
+     * Getter for transport
+     *
+     * @return the transport shared with the other clients of the same node and action
+     **/
+    final ActionClientTransport<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> getTransport() {
+        return this.transport;
+    }
+
+    /**
+     * Getter for inFlightPolicy
+     *
+     * @return inFlightPolicy
+     **/
+    public final InFlightPolicy getInFlightPolicy() {
+        return this.inFlightPolicy;
+    }
+
+    /**
+     * @return the number of goals that are sent and have not received a result yet
+     */
+    public final int getInFlightGoals() {
+        return this.inFlightGoalWindow.getInFlightCount();
+    }
 
-        return ActionClientFuture.createFromGoal(this, agMessage);
+    /**
+     * Start tracking the goal, the goal id must be already set.
+     *
+     * @param agMessage
+     *
+     * @return the {@link ClientGoalManager.ClientGoal} that tracks the state of the goal
+     */
+    final ClientGoalManager.ClientGoal<T_ACTION_GOAL> trackGoal(final T_ACTION_GOAL agMessage) {
+        return this.goalManager.addGoal(getGoalId(agMessage).getId(), agMessage);
     }
 
     /**
      * @param agMessage
      */
     final void sendGoalWire(final T_ACTION_GOAL agMessage) {
-        this.goalManager.setGoal(agMessage);
-        this.goalPublisher.publish(agMessage);
+        final ClientGoalManager.ClientGoal<T_ACTION_GOAL> clientGoal = this.goalManager.getGoal(getGoalId(agMessage).getId());
+        if (clientGoal != null) {
+            clientGoal.goalSent();
+        }
+        this.transport.publishGoal(agMessage);
+        final long ackTimeoutNanos = this.goalAckTimeoutNanos;
+        if (clientGoal != null && ackTimeoutNanos > 0 && this.maxGoalResends > 0) {
+            this.scheduleAckCheck(clientGoal, agMessage, 1, ackTimeoutNanos);
+        }
+    }
+
+    /**
+     * Publish the goal again if no status is received for it within the delay, doubling the delay for every attempt.
+     * Goals published before the connections to the server are established are dropped without notice.
+     *
+     * @param clientGoal
+     * @param agMessage
+     * @param attempt    the number of the resend, starting from 1
+     * @param delayNanos
+     */
+    private final void scheduleAckCheck(final ClientGoalManager.ClientGoal<T_ACTION_GOAL> clientGoal, final T_ACTION_GOAL agMessage, final int attempt, final long delayNanos) {
+        try {
+            this.deadlineTimer.schedule(new ClientTimerTask<>(this.clientReference, client -> client.checkAck(clientGoal, agMessage, attempt, delayNanos)), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (final IllegalStateException illegalStateException) {
+            // the client is disconnected
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace(ExceptionUtils.getStackTrace(illegalStateException));
+            }
+        }
+    }
+
+    /**
+     * @param clientGoal
+     * @param agMessage
+     * @param attempt    the number of the resend, starting from 1
+     * @param delayNanos the delay of this attempt
+     */
+    private final void checkAck(final ClientGoalManager.ClientGoal<T_ACTION_GOAL> clientGoal, final T_ACTION_GOAL agMessage, final int attempt, final long delayNanos) {
+        // the goal may have been acknowledged, cancelled, or dropped by disconnect
+        if (!clientGoal.isWaitingForAck() || this.goalManager.getGoal(clientGoal.getGoalId()) != clientGoal) {
+            return;
+        }
+        if (attempt > this.maxGoalResends) {
+            if (LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Goal:[" + clientGoal.getGoalId() + "] of action:[" + this.actionName + "] not acknowledged after " + (attempt - 1) + " resends");
+            }
+            return;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Goal:[" + clientGoal.getGoalId() + "] of action:[" + this.actionName + "] not acknowledged, resend:" + attempt);
+        }
+        this.goalResendCount.incrementAndGet();
+        this.transport.publishGoal(agMessage);
+        this.scheduleAckCheck(clientGoal, agMessage, attempt + 1, delayNanos > Long.MAX_VALUE / 2 ? delayNanos : delayNanos * 2);
+    }
+
+    /**
+     * Publish the goals again when the server does not acknowledge them, as the goals published before the connections
+     * to the server are established are dropped without notice.
+     * A goal is published again if no status is received for it within the ack timeout, then after twice the timeout and so on,
+     * up to maxResends times. The server drops the copies of a goal it has already received.
+     * By default goals are never published again.
+     *
+     * @param ackTimeout the time to wait for the first status of a goal, zero to disable
+     * @param maxResends the maximum number of times a goal is published again, zero to disable
+     */
+    public final void setGoalAckTimeout(final Duration ackTimeout, final int maxResends) {
+        Objects.requireNonNull(ackTimeout);
+        if (maxResends < 0) {
+            throw new IllegalArgumentException("maxResends:" + maxResends + " should not be negative");
+        }
+        this.maxGoalResends = maxResends;
+        this.goalAckTimeoutNanos = Math.max(0, ackTimeout.totalNsecs());
+    }
+
+    /**
+     * Detect the goals that the server no longer reports, they are moved to {@link ClientState#LOST}
+     * and their futures fail with a {@link TimeoutException}, so that callers do not wait for results that will never come.
+     * A goal is lost when it is pending, active or being cancelled and is missing from maxMissedStatusArrays consecutive status arrays,
+     * or when it has been published and no status array is received for the serverSilenceTimeout.
+     * By default goals are never lost.
+     *
+     * @param serverSilenceTimeout  the time without status arrays after which the running goals are lost, zero to disable,
+     *                              it should be several times the status period of the server
+     * @param maxMissedStatusArrays the number of consecutive status arrays without a goal after which it is lost, zero to disable
+     */
+    public final void setLostGoalDetection(final Duration serverSilenceTimeout, final int maxMissedStatusArrays) {
+        Objects.requireNonNull(serverSilenceTimeout);
+        if (maxMissedStatusArrays < 0) {
+            throw new IllegalArgumentException("maxMissedStatusArrays:" + maxMissedStatusArrays + " should not be negative");
+        }
+        this.maxMissedStatusArrays = maxMissedStatusArrays;
+        this.serverSilenceTimeoutNanos = Math.max(0, serverSilenceTimeout.totalNsecs());
+        if (this.serverSilenceTimeoutNanos > 0 && this.serverSilenceCheckScheduled.compareAndSet(false, true)) {
+            this.scheduleServerSilenceCheck();
+        }
+    }
+
+    /**
+     * Check for server silence periodically while it is enabled, twice per timeout.
+     * The checks stop once the client is collected.
+     */
+    private final void scheduleServerSilenceCheck() {
+        final long silenceTimeoutNanos = this.serverSilenceTimeoutNanos;
+        try {
+            this.deadlineTimer.schedule(new ClientTimerTask<>(this.clientReference, ActionClient::checkServerSilence)
+                    , Math.max(silenceTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(DEADLINE_TIMER_TICK_MILLIS)), TimeUnit.NANOSECONDS);
+        } catch (final IllegalStateException illegalStateException) {
+            // the client is disconnected
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace(ExceptionUtils.getStackTrace(illegalStateException));
+            }
+        }
+    }
+
+    /**
+     * Lose the goals if the server is silent, then schedule the next check while the detection is enabled.
+     */
+    private final void checkServerSilence() {
+        final long timeoutNanos = this.serverSilenceTimeoutNanos;
+        if (timeoutNanos > 0) {
+            final List<ClientGoalManager.ClientGoal<T_ACTION_GOAL>> lostGoals = this.goalManager.serverSilent(this.lastStatusArrayNanos, System.nanoTime(), timeoutNanos);
+            for (final ClientGoalManager.ClientGoal<T_ACTION_GOAL> lostGoal : lostGoals) {
+                this.goalLost(lostGoal, "no status from the server for " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms");
+            }
+            this.scheduleServerSilenceCheck();
+        } else {
+            this.serverSilenceCheckScheduled.set(false);
+            // enabled again while stopping
+            if (this.serverSilenceTimeoutNanos > 0 && this.serverSilenceCheckScheduled.compareAndSet(false, true)) {
+                this.scheduleServerSilenceCheck();
+            }
+        }
+    }
+
+    /**
+     * The goal is no longer tracked, its in flight slot is released and its future fails.
+     *
+     * @param lostGoal
+     * @param reason
+     */
+    private final void goalLost(final ClientGoalManager.ClientGoal<T_ACTION_GOAL> lostGoal, final String reason) {
+        final String goalId = lostGoal.getGoalId();
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.warn("Goal:[" + goalId + "] of action:[" + this.actionName + "] lost, " + reason);
+        }
+        this.inFlightGoalWindow.release(goalId);
+        final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future = this.goalIdToFutureMap.remove(goalId);
+        if (future != null) {
+            future.timedOut(new TimeoutException("Goal:" + goalId + " of action:" + this.actionName + " lost, " + reason));
+        }
+    }
+
+    /**
+     * @return the number of times goals have been published again because they were not acknowledged
+     */
+    public final long getGoalResendCount() {
+        return this.goalResendCount.get();
     }
 
     /**
@@ -227,86 +811,51 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
      * @see actionlib_msgs.GoalID
      */
     public final void setGoalId(final T_ACTION_GOAL goal, final GoalID gid) {
-        ActionLibMessagesUtils.setSubMessageFromMessage(goal, gid, "getGoalId");
+        ActionLibMessagesUtils.setSubMessageFromMessage(goal, gid, "setGoalId");
     }
 
     /**
      * Publish a cancel message. This instructs the action server to cancel the
      * specified goal.
+     * A {@link GoalID} with a blank id cancels every goal.
+     * Goals that are still waiting for an in flight slot are recalled locally and never sent,
+     * their futures fail with a {@link CancellationException}.
      *
      * @param id The GoalID message identifying the goal to cancel.
      *
      * @see actionlib_msgs.GoalID
      */
     public final void sendCancel(final GoalID id) {
-        this.goalManager.cancelGoal();
-        this.cancelPublisher.publish(id);
+        if (StringUtils.isBlank(id.getId())) {
+            this.goalManager.cancelAllGoals();
+            for (final String pendingGoalId : this.inFlightGoalWindow.removeAllPending()) {
+                this.goalRecalled(pendingGoalId);
+            }
+        } else {
+            this.goalManager.cancelGoal(id.getId());
+            if (this.inFlightGoalWindow.removePending(id.getId())) {
+                this.goalRecalled(id.getId());
+                return;
+            }
+        }
+        this.transport.publishCancel(id);
     }
 
     /**
-     * Start publishing on the client topics: /goal and /cancel.
+     * The goal is cancelled before it is sent, it is no longer tracked and its future fails.
      *
-     * @param connectedNode The node object that is connected to the ROS master.
-     */
-    private final void publishClient(final ConnectedNode connectedNode) {
-        Objects.requireNonNull(connectedNode);
-        this.goalPublisher = connectedNode.newPublisher(actionName + "/goal", actionGoalType);
-        this.goalPublisher.setLatchMode(LATCH_MODE);
-        this.cancelPublisher = connectedNode.newPublisher(actionName + "/cancel", GoalID._TYPE);
-    }
-
-    /**
-     * Stop publishing our client topics.
+     * @param goalId
      */
-    private final void unpublishClient() {
-        if (this.goalPublisher != null) {
-            this.goalPublisher.shutdown(5, TimeUnit.SECONDS);
-            this.goalPublisher = null;
-        }
-        if (this.cancelPublisher != null) {
-            this.cancelPublisher.shutdown(5, TimeUnit.SECONDS);
-            this.cancelPublisher = null;
+    private final void goalRecalled(final String goalId) {
+        this.goalManager.recallGoal(goalId);
+        final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future = this.goalIdToFutureMap.remove(goalId);
+        if (future != null) {
+            future.recalled(new CancellationException("Goal:" + goalId + " of action:" + this.actionName + " recalled before it was sent"));
         }
     }
 
     public T_ACTION_GOAL newGoalMessage() {
-        return goalPublisher.newMessage();
-    }
-
-    /**
-     * Subscribe to the server topics.
-     *
-     * @param node The node object that is connected to the ROS master.
-     */
-    private final void subscribeToServer(final ConnectedNode node) {
-        this.serverResultSubscriber = node.newSubscriber(actionName + "/result", actionResultType);
-        this.serverFeedbackSubscriber = node.newSubscriber(actionName + "/feedback", actionFeedbackType);
-        this.serverStatusSubscriber = node.newSubscriber(actionName + "/status", GoalStatusArray._TYPE);
-
-        this.serverResultSubscriber.addMessageListener(message -> gotResult(message));
-        this.serverFeedbackSubscriber.addMessageListener(message -> gotFeedback(message));
-        this.serverStatusSubscriber.addMessageListener(message -> gotStatus(message));
-    }
-
-    /**
-     * Unsubscribe from the server topics.
-     */
-    private final void unsubscribeToServer() {
-        if (this.serverFeedbackSubscriber != null) {
-            this.serverFeedbackSubscriber.removeAllMessageListeners();
-            this.serverFeedbackSubscriber.shutdown(5, TimeUnit.SECONDS);
-            this.serverFeedbackSubscriber = null;
-        }
-        if (this.serverResultSubscriber != null) {
-            this.serverResultSubscriber.removeAllMessageListeners();
-            this.serverResultSubscriber.shutdown(5, TimeUnit.SECONDS);
-            this.serverResultSubscriber = null;
-        }
-        if (this.serverStatusSubscriber != null) {
-            this.serverStatusSubscriber.removeAllMessageListeners();
-            this.serverStatusSubscriber.shutdown(5, TimeUnit.SECONDS);
-            this.serverStatusSubscriber = null;
-        }
+        return this.transport.newGoalMessage();
     }
 
     /**
@@ -315,12 +864,18 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
      * @param message The result message received. The type of this message
      *                depends on the application.
      */
-    private final void gotResult(T_ACTION_RESULT message) {
-        ActionResult<T_ACTION_RESULT> ar = new ActionResult(message);
-        if (ar.getGoalStatusMessage().getGoalId().getId().equals(goalManager.getActionGoal().getGoalId())) {
-            goalManager.updateStatus(ar.getGoalStatusMessage().getStatus());
+    final void gotResult(final T_ACTION_RESULT message) {
+        final GoalStatus goalStatus = new ActionResult<>(message).getGoalStatusMessage();
+        final String goalId = goalStatus.getGoalId().getId();
+        this.goalManager.updateStatus(goalStatus);
+        this.goalManager.resultReceived(goalId);
+        this.inFlightGoalWindow.release(goalId);
+
+        final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future = this.goalIdToFutureMap.remove(goalId);
+        if (future != null) {
+            future.resultReceived(message);
         }
-        goalManager.resultReceived();
+
         // Propagate the callback
         for (final ActionClientResultListener<T_ACTION_RESULT> actionClientListener : this.callbackResultTargets) {
             if (actionClientListener != null) {
@@ -335,11 +890,15 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
      * @param message The feedback message received. The type of this message
      *                depends on the application.
      */
-    private final void gotFeedback(final T_ACTION_FEEDBACK message) {
-        ActionFeedback<T_ACTION_FEEDBACK> af = new ActionFeedback(message);
-        if (af.getGoalStatusMessage().getGoalId().getId().equals(goalManager.getActionGoal().getGoalId())) {
-            goalManager.updateStatus(af.getGoalStatusMessage().getStatus());
+    final void gotFeedback(final T_ACTION_FEEDBACK message) {
+        final GoalStatus goalStatus = new ActionFeedback<>(message).getGoalStatusMessage();
+        this.goalManager.updateStatus(goalStatus);
+
+        final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future = this.goalIdToFutureMap.get(goalStatus.getGoalId().getId());
+        if (future != null) {
+            future.feedbackReceived(message);
         }
+
         // Propagate the callback
         for (final ActionClientFeedbackListener<T_ACTION_FEEDBACK> actionClientListener : this.callbackFeedbackTargets) {
             if (actionClientListener != null) {
@@ -355,20 +914,12 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
      *
      * @see actionlib_msgs.GoalStatusArray
      */
-    private final void gotStatus(final GoalStatusArray message) {
-        this.statusSubscriberFlag = true;
-
-        // Find the status for our current goal
-        final GoalStatus goalStatus = this.findStatus(message);
-        if (goalStatus != null) {
-            // update the goal status tracking
-            this.goalManager.updateStatus(goalStatus.getStatus());
-        } else {
-            if (LOGGER.isDebugEnabled()) {
-                if (message.getStatusList() != null && !message.getStatusList().isEmpty()) {
-                    LOGGER.debug("Status update is not for current goal! Action:[" + this.actionName + "]");
-                }
-            }
+    final void gotStatus(final GoalStatusArray message) {
+        this.lastStatusArrayNanos = System.nanoTime();
+        // Single pass over the status list, each status is routed to the goal it refers to
+        final List<ClientGoalManager.ClientGoal<T_ACTION_GOAL>> lostGoals = this.goalManager.statusArrayReceived(message.getStatusList(), this.maxMissedStatusArrays);
+        for (final ClientGoalManager.ClientGoal<T_ACTION_GOAL> lostGoal : lostGoals) {
+            this.goalLost(lostGoal, "missing from the last " + this.maxMissedStatusArrays + " status arrays");
         }
         // Propagate the callback
 
@@ -381,8 +932,8 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
     }
 
     /**
-     * Walk through the status array and find the status for the action goal that
-     * we are interested in.
+     * Walk through the status array and find the status for the most recently sent
+     * action goal.
      *
      * @param statusMessage The message with the goal status array
      *                      (actionlib_msgs.GoalStatusArray)
@@ -391,57 +942,55 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
      * find it.
      */
     public final GoalStatus findStatus(final GoalStatusArray statusMessage) {
+        final ClientGoalManager.ClientGoal<T_ACTION_GOAL> latestGoal = this.goalManager.getLatestGoal();
+        return latestGoal == null ? null : this.findStatus(statusMessage, latestGoal.getGoalId());
+    }
+
+    /**
+     * Walk through the status array and find the latest status for the action goal with the given id.
+     *
+     * @param statusMessage The message with the goal status array
+     *                      (actionlib_msgs.GoalStatusArray)
+     * @param idToFind      The id of the goal
+     *
+     * @return The goal status message for the goal we want or null if we didn't
+     * find it.
+     */
+    public final GoalStatus findStatus(final GoalStatusArray statusMessage, final String idToFind) {
         GoalStatus goalStatus = null;
-        if (statusMessage != null) {
+        if (statusMessage != null && idToFind != null) {
             final List<GoalStatus> statusList = statusMessage.getStatusList();
 
-            if (this.goalManager.getActionGoal() != null && statusMessage.getStatusList() != null && !statusMessage.getStatusList().isEmpty()) {
-                final String idToFind = this.goalManager.getActionGoal().getGoalId();
-
-                if (idToFind != null) {
-                    final List<GoalStatus> goalStatuses = statusList.stream().filter(goalStatusParam -> goalStatusParam.getGoalId().getId().equals(idToFind)).collect(Collectors.toList());
-                    final int goalStatusesSize = goalStatuses.size();
-                    if (LOGGER.isInfoEnabled() && (goalStatusesSize >= 0) && !statusList.isEmpty()) {
-                        LOGGER.info("Found [" + goalStatuses.size() + "] statuses for goal ID: " + idToFind + " action:[" + actionName + "]");
-
-                    }
-                    if (goalStatusesSize > 0) {
-                        goalStatus = goalStatuses.stream().findAny().orElse(null);
-                        try {
-                            if (goalStatus != null) {
-                                for (final GoalStatus status : goalStatuses) {
-                                    goalStatus = goalStatus.getGoalId().getStamp().compareTo(status.getGoalId().getStamp()) >= 0 ? goalStatus : status;
-                                    if (LOGGER.isTraceEnabled()) {
-                                        LOGGER.trace("Latest status: [" + goalStatus.getStatus() + "," + goalStatus.getText() + "] for goal with ID: " + idToFind + " action:[" + actionName + "]");
-                                    }
-
-                                }
-                            }
-                        } catch (final Exception e) {
-                            if (LOGGER.isErrorEnabled()) {
-                                LOGGER.error(ExceptionUtils.getStackTrace(e));
+            if (statusList != null) {
+                int goalStatusesSize = 0;
+                try {
+                    // single pass without iterators, the status lists of the messages are random access
+                    for (int i = 0, size = statusList.size(); i < size; i++) {
+                        final GoalStatus status = statusList.get(i);
+                        if (idToFind.equals(status.getGoalId().getId())) {
+                            goalStatusesSize++;
+                            if (goalStatus == null || goalStatus.getGoalId().getStamp().compareTo(status.getGoalId().getStamp()) < 0) {
+                                goalStatus = status;
                             }
                         }
                     }
-
+                } catch (final Exception e) {
+                    if (LOGGER.isErrorEnabled()) {
+                        LOGGER.error(ExceptionUtils.getStackTrace(e));
+                    }
+                }
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Found [" + goalStatusesSize + "] statuses for goal ID: " + idToFind + " action:[" + actionName + "]"
+                            + (goalStatus == null ? "" : " latest status: [" + goalStatus.getStatus() + "," + goalStatus.getText() + "]"));
                 }
             }
         }
         return goalStatus;
     }
 
-    /**
-     * Publishes the client's topics and suscribes to the server's topics.
-     *
-     * @param node The node object that is connected to the ROS master.
-     */
-    private final void connect(final ConnectedNode node) {
-        publishClient(node);
-        subscribeToServer(node);
-    }
-
     /**
      * Wait for an actionlib server to connect.
+     * The wait completes as soon as the connection events of every topic have been received.
      *
      * @param timeout The maximum amount of time to wait for an action server. If
      *                this value is less than or equal to zero, it will wait forever until a
@@ -451,67 +1000,7 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
      * false otherwise.
      */
     public final boolean waitForActionServerToStart(final Duration timeout) {
-        final Stopwatch stopwatch = Stopwatch.createStarted();
-        final long durationInNanos = timeout.totalNsecs();
-        boolean result = false;
-        long tests = 0;
-        boolean goalHasSubscribers = false;
-        boolean cancelHasSubscribers = false;
-        boolean feedbackSubscriberFlag = false;
-        boolean resultSubscriberFlag = false;
-        while (!result && (durationInNanos <= 0 || stopwatch.elapsed(TimeUnit.NANOSECONDS) <= durationInNanos)) {
-            tests++;
-            if (!goalHasSubscribers) {
-                goalHasSubscribers = this.goalPublisher.hasSubscribers();
-            }
-            if (!cancelHasSubscribers) {
-                cancelHasSubscribers = this.cancelPublisher.hasSubscribers();
-            }
-            if (!feedbackSubscriberFlag) {
-                feedbackSubscriberFlag = this.isTopicPublished(this.serverFeedbackSubscriber.getTopicName().toString());
-            }
-            if (!resultSubscriberFlag) {
-                resultSubscriberFlag = this.isTopicPublished(this.serverResultSubscriber.getTopicName().toString());
-            }
-            result = goalHasSubscribers
-                    && cancelHasSubscribers
-                    && this.statusSubscriberFlag
-                    && resultSubscriberFlag
-                    && feedbackSubscriberFlag;
-
-            try {
-                Thread.sleep(50);
-
-            } catch (final Exception e) {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug(ExceptionUtils.getStackTrace(e));
-                }
-            }
-
-        }
-
-        if (!result && LOGGER.isErrorEnabled()) {
-
-            LOGGER.error("[Could not connect to Server] tests:" + tests + "] GoalTopic:[" + this.actionName + "/goal] CancelTopic[" + actionName + "/cancel] timeout:[" + timeout + "] \n"
-                    + " [goalHasSubscribers:" + goalHasSubscribers
-                    + "] [cancelHasSubscribers:" + cancelHasSubscribers
-                    + "] [feedbackSubscriberFlag:" + feedbackSubscriberFlag
-                    + "] [resultSubscriberFlag:" + resultSubscriberFlag
-                    + "] [statusSubscriberFlag:" + statusSubscriberFlag + "]"
-            );
-
-        }
-        if (!result && LOGGER.isDebugEnabled()) {
-            LOGGER.debug(" [Server Started:" + result + "] [tests:" + tests + "] Goal Topic:[" + this.actionName + "/goal] CancelTopic[" + actionName + "/cancel] timeout:[" + timeout + "]");
-        }
-        return result;
-    }
-
-    /**
-     * TODO this probably should be removed. It is not a good practice to override finalize.
-     */
-    protected final void finalize() {
-        this.disconnect();
+        return this.transport.waitForActionServerToStart(timeout);
     }
 
     /**
@@ -523,52 +1012,63 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
 
 
     /**
-     * @param topicName
-     *
-     * @return
+     * @return the state of the most recently sent goal
      */
-    private final boolean isTopicPublished(final String topicName) {
-        boolean result = false;
-        if (topicName != null) {
-            for (final TopicSystemState topicSystemState : this.masterStateClient.getSystemState().getTopics()) {
-                if (topicSystemState != null
-                        && topicName.equals(topicSystemState.getTopicName())
-                        && topicSystemState.getPublishers() != null
-                        && !topicSystemState.getPublishers().isEmpty()) {
-                    result = true;
-                    break;
-                }
-
-            }
-        }
-        return result;
+    final ClientState getGoalState() {
+        return this.goalManager.getGoalState();
     }
 
 
     /**
-     * @return
+     * The latencies are aggregated over all the goals of this client, values can be exported with
+     * {@link LatencyHistogram.Snapshot#getValueAtPercentileNanos(double)}.
+     *
+     * @param phase
+     *
+     * @return a snapshot of the latencies of the given phase
      */
-    final ClientState getGoalState() {
-        return goalManager.getGoalState();
+    public final LatencyHistogram.Snapshot getLatencySnapshot(final GoalLatencyPhase phase) {
+        Objects.requireNonNull(phase);
+        return this.goalManager.getLatencyMetrics().snapshot(phase);
     }
 
-
     /**
-     * @return
+     * @return true if any of the goals sent by this client is still running
      */
     public final boolean isActive() {
-        return this.goalManager.getStateMachine().isRunning();
+        return this.goalManager.hasRunningGoals();
     }
 
     /**
      * Disconnect the action client. Unregister publishers and listeners.
+     * The futures of the goals that are not done, including the goals still waiting for a slot, fail with a {@link CancellationException}.
+     * A client that becomes unreachable without being disconnected is disconnected by a background thread, but its topics stay open until the garbage collector finds it.
      */
     public final void disconnect() {
         this.callbackResultTargets.clear();
         this.callbackFeedbackTargets.clear();
         this.callbackStatusTargets.clear();
-        unpublishClient();
-        unsubscribeToServer();
+        // the pending goals are removed first, so that none of them is sent while the futures are failed
+        this.inFlightGoalWindow.removeAllPending();
+        for (final String goalId : this.goalIdToFutureMap.keySet()) {
+            final ActionClientFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future = this.goalIdToFutureMap.remove(goalId);
+            if (future != null) {
+                future.recalled(new CancellationException("Goal:" + goalId + " of action:" + this.actionName + " cancelled, the client was disconnected"));
+            }
+        }
+        this.goalIdToFutureMap.clear();
+        this.goalManager.clear();
+        this.inFlightGoalWindow.clear();
+        this.resources.disconnected = true;
+        this.cleanable.clean();
+    }
+
+    /**
+     * Same as {@link #disconnect()}, so that the client can be used in a try-with-resources statement.
+     */
+    @Override
+    public final void close() {
+        this.disconnect();
     }
 
 
@@ -579,18 +1079,12 @@ public final class ActionClient<T_ACTION_GOAL extends Message,
                 .add("actionGoalType='" + actionGoalType + "'")
                 .add("actionResultType='" + actionResultType + "'")
                 .add("actionFeedbackType='" + actionFeedbackType + "'")
-                .add("goalPublisher=" + goalPublisher)
-                .add("cancelPublisher=" + cancelPublisher)
-                .add("serverResultSubscriber=" + serverResultSubscriber)
-                .add("serverFeedbackSubscriber=" + serverFeedbackSubscriber)
-                .add("serverStatusSubscriber=" + serverStatusSubscriber)
+                .add("transport=" + transport)
                 .add("actionName='" + actionName + "'")
                 .add("callbackResultTargets=" + callbackResultTargets)
                 .add("callbackFeedbackTargets=" + callbackFeedbackTargets)
                 .add("callbackStatusTargets=" + callbackStatusTargets)
                 .add("goalIdGenerator=" + goalIdGenerator)
-                .add("statusSubscriberFlag=" + statusSubscriberFlag)
-                .add("masterStateClient=" + masterStateClient)
                 .toString();
     }
 }
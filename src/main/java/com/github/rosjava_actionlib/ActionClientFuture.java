@@ -19,34 +19,60 @@ package com.github.rosjava_actionlib;
 
 import actionlib_msgs.GoalID;
 import actionlib_msgs.GoalStatus;
-import actionlib_msgs.GoalStatusArray;
-import com.google.common.base.Stopwatch;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.ros.internal.message.Message;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * The goal state is updated by the {@link ActionClient} which routes every status of this goal directly to its
+ * {@link ClientGoalManager.ClientGoal}. The results and feedback of this goal are routed to the future through a registry
+ * keyed by the goal id, so registering and completing a future costs the same regardless of the goals in flight.
+ * The future is backed by a {@link CompletableFuture} that is completed as soon as the result arrives,
+ * so waiting threads park without polling.
+ * The future is a feedback consumer of its client only once {@link #trackFeedback()} is called or a feedback listener is added,
+ * until it is done, so goals whose feedback is not wanted do not keep the feedback topic subscribed.
+ *
  * @param <T_GOAL>
  * @param <T_FEEDBACK>
  * @param <T_RESULT>
  */
 final class ActionClientFuture<T_GOAL extends Message, T_FEEDBACK extends Message, T_RESULT extends Message>
         implements ActionFuture<T_GOAL, T_FEEDBACK, T_RESULT>,
-        ActionClientListener<T_FEEDBACK, T_RESULT> {
+        ActionClientResultListener<T_RESULT>,
+        ActionClientFeedbackListener<T_FEEDBACK> {
     private static final Log LOGGER = LogFactory.getLog(ActionClientFuture.class);
+    private static final int DISCONNECTED = -1;
     private final GoalID goalid;
     private final ActionClient<T_GOAL, T_FEEDBACK, T_RESULT> actionClient;
-    private final ClientGoalManager goalManager = new ClientGoalManager(new ActionGoal<T_GOAL>());
-    private T_FEEDBACK latestFeedback = null;
-    private T_RESULT result = null;
+    private final ClientGoalManager.ClientGoal<T_GOAL> clientGoal;
+    private volatile T_FEEDBACK latestFeedback = null;
+    private final CompletableFuture<T_RESULT> resultFuture = new CompletableFuture<>();
+    private final List<ConflatingFeedbackListener<T_FEEDBACK>> feedbackListeners = new CopyOnWriteArrayList<>();
+    /**
+     * The feedback consumers registered by this future, {@link #DISCONNECTED} once it is disconnected
+     */
+    private final AtomicInteger feedbackConsumers = new AtomicInteger(0);
+    private final AtomicBoolean feedbackTracked = new AtomicBoolean(false);
 
 
     /**
+     * Start tracking the goal and listening for its result and feedback. The goal is published by the caller.
+     *
      * @param actionClient
      * @param goal
      * @param <T_GOAL>
@@ -59,40 +85,71 @@ final class ActionClientFuture<T_GOAL extends Message, T_FEEDBACK extends Messag
     ActionFuture<T_GOAL, T_FEEDBACK, T_RESULT>
     createFromGoal(ActionClient<T_GOAL, T_FEEDBACK, T_RESULT> actionClient, T_GOAL goal) {
         final GoalID goalId = actionClient.getGoalId(goal);
-        final ActionClientFuture<T_GOAL, T_FEEDBACK, T_RESULT> result = new ActionClientFuture<>(actionClient, goalId);
-        if (LOGGER.isWarnEnabled() && actionClient.isActive()) {
-            LOGGER.warn("current goal STATE:" + actionClient.getGoalState() + "=" + actionClient.getGoalState().getValue());
-        }
-        result.goalManager.setGoal(goal);
-        actionClient.sendGoalWire(goal);
-        actionClient.addListener(result);
+        final ActionClientFuture<T_GOAL, T_FEEDBACK, T_RESULT> result = new ActionClientFuture<>(actionClient, goalId, actionClient.trackGoal(goal));
+        actionClient.registerFuture(goalId.getId(), result);
         return result;
 
     }
 
+    /**
+     * Start tracking a batch of goals. The goal ids must be already set. The goals are published by the caller.
+     *
+     * @param actionClient
+     * @param goals
+     * @param <T_GOAL>
+     * @param <T_FEEDBACK>
+     * @param <T_RESULT>
+     *
+     * @return the futures in the order of the goals
+     */
+    static final <T_GOAL extends Message, T_FEEDBACK extends Message, T_RESULT extends Message>
+    List<ActionFuture<T_GOAL, T_FEEDBACK, T_RESULT>>
+    createFromGoals(final ActionClient<T_GOAL, T_FEEDBACK, T_RESULT> actionClient, final Collection<T_GOAL> goals) {
+        final List<ActionFuture<T_GOAL, T_FEEDBACK, T_RESULT>> futures = new ArrayList<>(goals.size());
+        for (final T_GOAL goal : goals) {
+            final GoalID goalId = actionClient.getGoalId(goal);
+            final ActionClientFuture<T_GOAL, T_FEEDBACK, T_RESULT> future = new ActionClientFuture<>(actionClient, goalId, actionClient.trackGoal(goal));
+            actionClient.registerFuture(goalId.getId(), future);
+            futures.add(future);
+        }
+        return futures;
+    }
+
     /**
      * @param actionClient
      * @param goalID
+     * @param clientGoal   the goal tracking state of the actionClient
      */
-    private ActionClientFuture(final ActionClient<T_GOAL, T_FEEDBACK, T_RESULT> actionClient, final GoalID goalID) {
+    private ActionClientFuture(final ActionClient<T_GOAL, T_FEEDBACK, T_RESULT> actionClient, final GoalID goalID, final ClientGoalManager.ClientGoal<T_GOAL> clientGoal) {
         this.actionClient = actionClient;
         this.goalid = goalID;
+        this.clientGoal = clientGoal;
     }
 
     /**
-     * @return
+     * @return the latest feedback, null unless the feedback of this goal is tracked
      */
     @Override
     public final T_FEEDBACK getLatestFeedback() {
         return this.latestFeedback;
     }
 
+    /**
+     * The future is registered as a feedback consumer once, it is ignored if the future is already done.
+     */
+    @Override
+    public final void trackFeedback() {
+        if (this.feedbackTracked.compareAndSet(false, true)) {
+            this.addFeedbackConsumer();
+        }
+    }
+
     /**
      * @return
      */
     @Override
     public final ClientState getCurrentState() {
-        return this.goalManager.getStateMachine().getState();
+        return this.clientGoal.getStateMachine().getState();
     }
 
     /**
@@ -103,28 +160,27 @@ final class ActionClientFuture<T_GOAL extends Message, T_FEEDBACK extends Messag
     @Override
     public final boolean cancel(final boolean bln) {
         this.actionClient.sendCancel(this.goalid);
-        this.goalManager.cancelGoal();
         return true;
     }
 
     /**
-     * @return
+     * @return true if the goal is done and the server reported it as {@link GoalStatus#PREEMPTED} or {@link GoalStatus#RECALLED},
+     * or if it was recalled before it was sent
      */
     @Override
     public final boolean isCancelled() {
-        if (this.goalManager.getStateMachine().isRunning()) {
-            return this.result == null;
-        } else {
-            return false;
-        }
+        final GoalStatus goalStatus = this.clientGoal.getLatestGoalStatus();
+        return this.resultFuture.isCancelled() || (this.resultFuture.isDone()
+                && goalStatus != null
+                && (goalStatus.getStatus() == GoalStatus.PREEMPTED || goalStatus.getStatus() == GoalStatus.RECALLED));
     }
 
     /**
-     * @return
+     * @return true if the result has been received
      */
     @Override
     public final boolean isDone() {
-        return !this.goalManager.getStateMachine().isRunning();
+        return this.resultFuture.isDone();
     }
 
     /**
@@ -135,27 +191,52 @@ final class ActionClientFuture<T_GOAL extends Message, T_FEEDBACK extends Messag
      */
     @Override
     public final T_RESULT get() throws InterruptedException, ExecutionException {
-        while (goalManager.getStateMachine().isRunning()) {
-            Thread.sleep(100);
-        }
-        disconnect();
-        return result;
+        return this.resultFuture.get();
     }
 
     @Override
     public final T_RESULT get(final long timeout, final TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
+        return this.resultFuture.get(timeout, timeUnit);
+    }
 
-        final Stopwatch stopwatch = Stopwatch.createStarted();
-        while (goalManager.getStateMachine().isRunning()) {
-            if (stopwatch.elapsed(timeUnit) > timeout) {
-                throw new TimeoutException();
-            }
-            Thread.sleep(50);
+    /**
+     * @return a {@link CompletionStage} that is completed with the result
+     */
+    @Override
+    public final CompletionStage<T_RESULT> toCompletionStage() {
+        return this.resultFuture.minimalCompletionStage();
+    }
+
+    /**
+     * The listener is ignored if the future is already done.
+     *
+     * @param listener the feedback listener
+     * @param executor the executor on which the listener will run
+     */
+    @Override
+    public final void addFeedbackListener(final ActionClientFeedbackListener<T_FEEDBACK> listener, final Executor executor) {
+        if (this.addFeedbackConsumer()) {
+            this.feedbackListeners.add(new ConflatingFeedbackListener<>(listener, executor));
         }
-        stopwatch.stop();
+    }
 
-        disconnect();
-        return this.result;
+    /**
+     * Register a feedback consumer with the client, unless this future is disconnected.
+     *
+     * @return true if the consumer is registered
+     */
+    private final boolean addFeedbackConsumer() {
+        // registered with the client first, so that a concurrent disconnect never releases more than the client has
+        this.actionClient.feedbackConsumerAdded();
+        int consumers;
+        do {
+            consumers = this.feedbackConsumers.get();
+            if (consumers == DISCONNECTED) {
+                this.actionClient.feedbackConsumersRemoved(1);
+                return false;
+            }
+        } while (!this.feedbackConsumers.compareAndSet(consumers, consumers + 1));
+        return true;
     }
 
     /**
@@ -164,53 +245,76 @@ final class ActionClientFuture<T_GOAL extends Message, T_FEEDBACK extends Messag
     @Override
     public final void resultReceived(final T_RESULT t_result) {
         final ActionResult result = new ActionResult(t_result);
-        if (this.LOGGER.isDebugEnabled()) {
-            this.LOGGER.debug("Received result: " + result.getGoalStatusMessage().getGoalId().getId());
-        }
         if (result.getGoalStatusMessage().getGoalId().getId().equals(goalid.getId())) {
-            this.goalManager.updateStatus(result.getGoalStatusMessage().getStatus());
-            this.goalManager.resultReceived();
-
-            this.result = t_result;
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Received result: " + goalid.getId());
+            }
+            // the goal state is updated by the actionClient
             disconnect();
+            this.resultFuture.complete(t_result);
 
         } else {
-            if (LOGGER.isWarnEnabled()) {
-                LOGGER.warn("Result with Unknown id:" + result.getGoalStatusMessage().getGoalId().getId() + ", waiting for " + goalid.getId());
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Result with other id:" + result.getGoalStatusMessage().getGoalId().getId() + ", waiting for " + goalid.getId());
             }
         }
 
 
     }
 
+    /**
+     * Fail the future because the deadline of the goal has passed or the goal is lost before its result.
+     *
+     * @param timeoutException
+     *
+     * @return true if the future was not already done
+     */
+    final boolean timedOut(final TimeoutException timeoutException) {
+        final boolean failed = this.resultFuture.completeExceptionally(timeoutException);
+        if (failed) {
+            disconnect();
+        }
+        return failed;
+    }
+
+    /**
+     * Cancel the future because the goal was recalled before it was sent, or because the client was disconnected.
+     *
+     * @param cancellationException
+     *
+     * @return true if the future was not already done
+     */
+    final boolean recalled(final CancellationException cancellationException) {
+        final boolean cancelled = this.resultFuture.completeExceptionally(cancellationException);
+        if (cancelled) {
+            disconnect();
+        }
+        return cancelled;
+    }
+
     @Override
     public final void feedbackReceived(final T_FEEDBACK t_feedback) {
         final ActionFeedback actionFeedback = new ActionFeedback(t_feedback);
 
-        if (actionFeedback.getGoalStatusMessage().getGoalId().getId().equals(goalid.getId())) {
-            goalManager.updateStatus(actionFeedback.getGoalStatusMessage().getStatus());
+        // the feedback subscribed for other consumers of the client is not kept unless it was requested
+        if (this.feedbackConsumers.get() > 0 && actionFeedback.getGoalStatusMessage().getGoalId().getId().equals(goalid.getId())) {
             this.latestFeedback = t_feedback;
+            for (final ConflatingFeedbackListener<T_FEEDBACK> feedbackListener : this.feedbackListeners) {
+                feedbackListener.feedbackReceived(t_feedback);
+            }
         }
 
     }
 
-    /**
-     * @param status The status message received from the server.
-     */
-    @Override
-    public final void statusReceived(final GoalStatusArray status) {
-        final String thisGoalId = this.goalid.getId();
-        status.getStatusList().stream()
-                .filter(goalStatus -> thisGoalId.equals(goalStatus.getGoalId().getId()))
-                .map(GoalStatus::getStatus)
-                .forEach(this.goalManager::updateStatus);
-    }
-
     /**
      *
      */
     private final void disconnect() {
-        this.actionClient.removeListener(this);
+        final int consumers = this.feedbackConsumers.getAndSet(DISCONNECTED);
+        if (consumers != DISCONNECTED) {
+            this.actionClient.unregisterFuture(this.goalid.getId(), this);
+            this.actionClient.feedbackConsumersRemoved(consumers);
+        }
     }
 
     /**
@@ -242,7 +346,7 @@ final class ActionClientFuture<T_GOAL extends Message, T_FEEDBACK extends Messag
 
             @Override
             public final Boolean get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
-                return this.get(timeout, timeUnit) != null;
+                return self.get(timeout, timeUnit) != null;
             }
         };
 
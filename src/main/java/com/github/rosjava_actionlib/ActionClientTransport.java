@@ -0,0 +1,564 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalID;
+import actionlib_msgs.GoalStatusArray;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.internal.message.Message;
+import org.ros.internal.node.topic.PublisherIdentifier;
+import org.ros.internal.node.topic.SubscriberIdentifier;
+import org.ros.message.Duration;
+import org.ros.node.ConnectedNode;
+import org.ros.node.topic.DefaultPublisherListener;
+import org.ros.node.topic.DefaultSubscriberListener;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.Subscriber;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The publishers and subscribers of an action, shared by all the {@link ActionClient}s of the same node and action name.
+ * Each message is received once and fanned out to the attached clients, so clients of the same action in a JVM
+ * share one connection per topic. The topics are shut down when the last client detaches.
+ * The /feedback topic, typically the one with the highest bandwidth, is subscribed only while at least one of the clients has a feedback consumer.
+ * It is unsubscribed {@link #FEEDBACK_LINGER_MILLIS} after the last consumer is removed, off the subscriber threads,
+ * so goals that are sent one after the other reuse the same subscription.
+ *
+ * @param <T_ACTION_GOAL>
+ * @param <T_ACTION_FEEDBACK>
+ * @param <T_ACTION_RESULT>
+ *
+ * @author Spyros Koukas
+ */
+final class ActionClientTransport<T_ACTION_GOAL extends Message,
+        T_ACTION_FEEDBACK extends Message,
+        T_ACTION_RESULT extends Message> {
+    private static final Log LOGGER = LogFactory.getLog(ActionClientTransport.class);
+    private static final boolean LATCH_MODE = false;
+
+    /**
+     * One transport per node and action name, guarded by itself.
+     * The nodes are compared by identity, so a node that is restarted with the same name and master never gets the transport of the previous one.
+     */
+    private static final Map<ConnectedNode, Map<String, ActionClientTransport<?, ?, ?>>> NODE_TO_TRANSPORTS_MAP = new IdentityHashMap<>();
+
+    /**
+     * How long the feedback topic stays subscribed after its last consumer is removed
+     */
+    static final long FEEDBACK_LINGER_MILLIS = 2000;
+
+    /**
+     * The lingering feedback topics of all the transports are unsubscribed on a single daemon thread
+     */
+    private static final ScheduledThreadPoolExecutor FEEDBACK_UNSUBSCRIBE_EXECUTOR = createFeedbackUnsubscribeExecutor();
+
+    /**
+     * How often the connection to the server is checked while waiting for it, when no connection event arrives.
+     */
+    private static final long SERVER_CONNECTION_CHECK_PERIOD_MILLIS = MasterStateSnapshot.MIN_REFRESH_PERIOD_MILLIS;
+
+    private final ConnectedNode connectedNode;
+    private final String actionName;
+    private final String actionGoalType;
+    private final String actionFeedbackType;
+    private final String actionResultType;
+    private final MasterStateSnapshot masterStateSnapshot;
+    /**
+     * The clients are referenced weakly, so that a client that is not disconnected can still be collected and detached by the {@link ResourceCleaner}
+     */
+    private final List<WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>>> clients = new CopyOnWriteArrayList<>();
+
+    private final Publisher<T_ACTION_GOAL> goalPublisher;
+    private final Publisher<GoalID> cancelPublisher;
+    private final Subscriber<T_ACTION_RESULT> serverResultSubscriber;
+    private final Subscriber<GoalStatusArray> serverStatusSubscriber;
+    /**
+     * Created by the first feedback consumer and shut down {@link #FEEDBACK_LINGER_MILLIS} after the last one is removed, guarded by this
+     */
+    private volatile Subscriber<T_ACTION_FEEDBACK> serverFeedbackSubscriber = null;
+    private int feedbackConsumers = 0;
+    /**
+     * The scheduled unsubscribe of the feedback topic and its generation, a consumer added before it runs invalidates it, guarded by this
+     */
+    private ScheduledFuture<?> feedbackUnsubscribe = null;
+    private long feedbackUnsubscribeGeneration = 0;
+
+    /**
+     * Notified whenever one of the server connection flags is set
+     */
+    private final Object serverConnectionMonitor = new Object();
+    private volatile boolean goalHasSubscribers = false;
+    private volatile boolean cancelHasSubscribers = false;
+    private volatile boolean feedbackSubscriberFlag = false;
+    private volatile boolean resultSubscriberFlag = false;
+    private volatile boolean statusSubscriberFlag = false;
+
+    /**
+     * @param connectedNode
+     * @param actionName
+     * @param actionGoalType
+     * @param actionFeedbackType
+     * @param actionResultType
+     */
+    private ActionClientTransport(final ConnectedNode connectedNode
+            , final String actionName
+            , final String actionGoalType
+            , final String actionFeedbackType
+            , final String actionResultType) {
+        this.connectedNode = connectedNode;
+        this.actionName = actionName;
+        this.actionGoalType = actionGoalType;
+        this.actionFeedbackType = actionFeedbackType;
+        this.actionResultType = actionResultType;
+        this.masterStateSnapshot = MasterStateSnapshot.forNode(connectedNode);
+
+        this.goalPublisher = connectedNode.newPublisher(actionName + "/goal", actionGoalType);
+        this.goalPublisher.setLatchMode(LATCH_MODE);
+        this.cancelPublisher = connectedNode.newPublisher(actionName + "/cancel", GoalID._TYPE);
+        this.goalPublisher.addListener(new DefaultPublisherListener<T_ACTION_GOAL>() {
+            @Override
+            public final void onNewSubscriber(final Publisher<T_ACTION_GOAL> publisher, final SubscriberIdentifier subscriberIdentifier) {
+                ActionClientTransport.this.goalHasSubscribers = true;
+                ActionClientTransport.this.signalServerConnection();
+            }
+        });
+        this.cancelPublisher.addListener(new DefaultPublisherListener<GoalID>() {
+            @Override
+            public final void onNewSubscriber(final Publisher<GoalID> publisher, final SubscriberIdentifier subscriberIdentifier) {
+                ActionClientTransport.this.cancelHasSubscribers = true;
+                ActionClientTransport.this.signalServerConnection();
+            }
+        });
+
+        this.serverResultSubscriber = connectedNode.newSubscriber(actionName + "/result", actionResultType);
+        this.serverStatusSubscriber = connectedNode.newSubscriber(actionName + "/status", GoalStatusArray._TYPE);
+
+        this.serverResultSubscriber.addMessageListener(this::gotResult);
+        this.serverStatusSubscriber.addMessageListener(this::gotStatus);
+
+        this.serverResultSubscriber.addSubscriberListener(new DefaultSubscriberListener<T_ACTION_RESULT>() {
+            @Override
+            public final void onNewPublisher(final Subscriber<T_ACTION_RESULT> subscriber, final PublisherIdentifier publisherIdentifier) {
+                ActionClientTransport.this.resultSubscriberFlag = true;
+                ActionClientTransport.this.signalServerConnection();
+            }
+        });
+        this.serverStatusSubscriber.addSubscriberListener(new DefaultSubscriberListener<GoalStatusArray>() {
+            @Override
+            public final void onNewPublisher(final Subscriber<GoalStatusArray> subscriber, final PublisherIdentifier publisherIdentifier) {
+                ActionClientTransport.this.statusSubscriberFlag = true;
+                ActionClientTransport.this.signalServerConnection();
+            }
+        });
+    }
+
+    /**
+     * Subscribe to the feedback topic if this is the first feedback consumer.
+     *
+     * @param consumers the number of added feedback consumers
+     */
+    final synchronized void addFeedbackConsumers(final int consumers) {
+        // a transport without clients is shut down
+        if (consumers > 0 && !this.clients.isEmpty()) {
+            this.feedbackConsumers += consumers;
+            this.cancelFeedbackUnsubscribe();
+            if (this.serverFeedbackSubscriber == null) {
+                final Subscriber<T_ACTION_FEEDBACK> feedbackSubscriber = this.connectedNode.newSubscriber(this.actionName + "/feedback", this.actionFeedbackType);
+                feedbackSubscriber.addMessageListener(this::gotFeedback);
+                feedbackSubscriber.addSubscriberListener(new DefaultSubscriberListener<T_ACTION_FEEDBACK>() {
+                    @Override
+                    public final void onNewPublisher(final Subscriber<T_ACTION_FEEDBACK> subscriber, final PublisherIdentifier publisherIdentifier) {
+                        ActionClientTransport.this.feedbackSubscriberFlag = true;
+                        ActionClientTransport.this.signalServerConnection();
+                    }
+                });
+                this.serverFeedbackSubscriber = feedbackSubscriber;
+            }
+        }
+    }
+
+    /**
+     * Schedule the unsubscribe from the feedback topic if the last feedback consumer is removed.
+     *
+     * @param consumers the number of removed feedback consumers
+     */
+    final synchronized void removeFeedbackConsumers(final int consumers) {
+        if (consumers > 0 && this.feedbackConsumers > 0) {
+            this.feedbackConsumers = Math.max(0, this.feedbackConsumers - consumers);
+            if (this.feedbackConsumers == 0 && this.serverFeedbackSubscriber != null && this.feedbackUnsubscribe == null) {
+                final long generation = ++this.feedbackUnsubscribeGeneration;
+                this.feedbackUnsubscribe = FEEDBACK_UNSUBSCRIBE_EXECUTOR.schedule(() -> this.unsubscribeFeedback(generation), FEEDBACK_LINGER_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Must be called holding the lock of this.
+     */
+    private final void cancelFeedbackUnsubscribe() {
+        if (this.feedbackUnsubscribe != null) {
+            this.feedbackUnsubscribe.cancel(false);
+            this.feedbackUnsubscribe = null;
+            this.feedbackUnsubscribeGeneration++;
+        }
+    }
+
+    /**
+     * Shut down the feedback subscriber, unless a consumer was added after the unsubscribe was scheduled.
+     *
+     * @param generation the generation of the scheduled unsubscribe
+     */
+    private final void unsubscribeFeedback(final long generation) {
+        final Subscriber<T_ACTION_FEEDBACK> feedbackSubscriber;
+        synchronized (this) {
+            if (generation != this.feedbackUnsubscribeGeneration || this.feedbackConsumers > 0) {
+                return;
+            }
+            this.feedbackUnsubscribe = null;
+            feedbackSubscriber = this.serverFeedbackSubscriber;
+            this.serverFeedbackSubscriber = null;
+            this.feedbackSubscriberFlag = false;
+        }
+        new TopicShutdown(this.actionName).add(feedbackSubscriber).shutdown();
+    }
+
+    /**
+     * @return
+     */
+    private static final ScheduledThreadPoolExecutor createFeedbackUnsubscribeExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "ActionClientTransport-feedback-unsubscribe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the unsubscribes cancelled by a new consumer do not stay in the queue
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Attach the client to the transport of its node and action, creating the transport if this is the first client.
+     *
+     * @param connectedNode
+     * @param actionName
+     * @param actionGoalType
+     * @param actionFeedbackType
+     * @param actionResultType
+     * @param clientReference a weak reference to the client, the same reference is used to detach it
+     *
+     * @return the shared transport
+     *
+     * @throws IllegalArgumentException if the action is already used in the node with different message types
+     */
+    @SuppressWarnings("unchecked")
+    static final <T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message>
+    ActionClientTransport<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> attach(final ConnectedNode connectedNode
+            , final String actionName
+            , final String actionGoalType
+            , final String actionFeedbackType
+            , final String actionResultType
+            , final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference) {
+        Objects.requireNonNull(connectedNode);
+        Objects.requireNonNull(actionName);
+        Objects.requireNonNull(clientReference);
+        synchronized (NODE_TO_TRANSPORTS_MAP) {
+            final Map<String, ActionClientTransport<?, ?, ?>> actionNameToTransportMap = NODE_TO_TRANSPORTS_MAP.computeIfAbsent(connectedNode, node -> new HashMap<>());
+            ActionClientTransport<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> transport = (ActionClientTransport<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>) actionNameToTransportMap.get(actionName);
+            if (transport == null) {
+                transport = new ActionClientTransport<>(connectedNode, actionName, actionGoalType, actionFeedbackType, actionResultType);
+                actionNameToTransportMap.put(actionName, transport);
+            } else if (!Objects.equals(transport.actionGoalType, actionGoalType)
+                    || !Objects.equals(transport.actionFeedbackType, actionFeedbackType)
+                    || !Objects.equals(transport.actionResultType, actionResultType)) {
+                throw new IllegalArgumentException("Action:" + actionName + " is already used with goal type:" + transport.actionGoalType
+                        + " feedback type:" + transport.actionFeedbackType + " result type:" + transport.actionResultType);
+            }
+            transport.clients.add(clientReference);
+            return transport;
+        }
+    }
+
+    /**
+     * Detach the client, the topics are shut down when the last client detaches.
+     *
+     * @param clientReference the reference the client was attached with, the client may already be collected
+     *
+     * @return true if the client was attached
+     */
+    final boolean detach(final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference) {
+        final boolean shutdown;
+        synchronized (NODE_TO_TRANSPORTS_MAP) {
+            if (!this.clients.remove(clientReference)) {
+                return false;
+            }
+            shutdown = this.clients.isEmpty();
+            if (shutdown) {
+                final Map<String, ActionClientTransport<?, ?, ?>> actionNameToTransportMap = NODE_TO_TRANSPORTS_MAP.get(this.connectedNode);
+                if (actionNameToTransportMap != null && actionNameToTransportMap.remove(this.actionName, this) && actionNameToTransportMap.isEmpty()) {
+                    NODE_TO_TRANSPORTS_MAP.remove(this.connectedNode);
+                }
+            }
+        }
+        if (shutdown) {
+            this.shutdown();
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of attached clients, zero once the transport is shut down
+     */
+    final int getClientCount() {
+        return this.clients.size();
+    }
+
+    /**
+     * Shut down every topic concurrently.
+     */
+    private final void shutdown() {
+        final Subscriber<T_ACTION_FEEDBACK> feedbackSubscriber;
+        synchronized (this) {
+            this.feedbackConsumers = 0;
+            this.cancelFeedbackUnsubscribe();
+            feedbackSubscriber = this.serverFeedbackSubscriber;
+            this.serverFeedbackSubscriber = null;
+        }
+        new TopicShutdown(this.actionName)
+                .add(this.goalPublisher)
+                .add(this.cancelPublisher)
+                .add(this.serverResultSubscriber)
+                .add(this.serverStatusSubscriber)
+                .add(feedbackSubscriber)
+                .shutdown();
+    }
+
+    /**
+     * @return a new goal message
+     */
+    final T_ACTION_GOAL newGoalMessage() {
+        return this.goalPublisher.newMessage();
+    }
+
+    /**
+     * @param goal
+     */
+    final void publishGoal(final T_ACTION_GOAL goal) {
+        this.goalPublisher.publish(goal);
+    }
+
+    /**
+     * @param goalId
+     */
+    final void publishCancel(final GoalID goalId) {
+        this.cancelPublisher.publish(goalId);
+    }
+
+    /**
+     * @param message
+     */
+    private final void gotResult(final T_ACTION_RESULT message) {
+        for (final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference : this.clients) {
+            final ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> client = clientReference.get();
+            if (client == null) {
+                continue;
+            }
+            try {
+                client.gotResult(message);
+            } catch (final RuntimeException e) {
+                if (LOGGER.isErrorEnabled()) {
+                    LOGGER.error(ExceptionUtils.getStackTrace(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param message
+     */
+    private final void gotFeedback(final T_ACTION_FEEDBACK message) {
+        for (final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference : this.clients) {
+            final ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> client = clientReference.get();
+            if (client == null) {
+                continue;
+            }
+            try {
+                client.gotFeedback(message);
+            } catch (final RuntimeException e) {
+                if (LOGGER.isErrorEnabled()) {
+                    LOGGER.error(ExceptionUtils.getStackTrace(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param message
+     */
+    private final void gotStatus(final GoalStatusArray message) {
+        if (!this.statusSubscriberFlag) {
+            this.statusSubscriberFlag = true;
+            this.signalServerConnection();
+        }
+        for (final WeakReference<ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> clientReference : this.clients) {
+            final ActionClient<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> client = clientReference.get();
+            if (client == null) {
+                continue;
+            }
+            try {
+                client.gotStatus(message);
+            } catch (final RuntimeException e) {
+                if (LOGGER.isErrorEnabled()) {
+                    LOGGER.error(ExceptionUtils.getStackTrace(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Wake up the threads waiting for the server connection.
+     */
+    private final void signalServerConnection() {
+        synchronized (this.serverConnectionMonitor) {
+            this.serverConnectionMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * @return true if every topic is connected to the server, the feedback topic only while it is subscribed
+     */
+    private final boolean isServerConnected() {
+        return this.goalHasSubscribers
+                && this.cancelHasSubscribers
+                && this.statusSubscriberFlag
+                && this.resultSubscriberFlag
+                && (this.feedbackSubscriberFlag || this.serverFeedbackSubscriber == null);
+    }
+
+    /**
+     * The flags set by the connection events are the source of truth, the subscriber flags are only set here from the
+     * shared, rate limited {@link MasterStateSnapshot}, for connections established before the listeners were registered.
+     * The publishers are checked locally on each call, when the server drops its goal subscription it is gone,
+     * so the subscriber flags are cleared and are set again by the events of the next server.
+     */
+    private final void checkServerConnection() {
+        final boolean goalHadSubscribers = this.goalHasSubscribers;
+        this.goalHasSubscribers = this.goalPublisher.hasSubscribers();
+        this.cancelHasSubscribers = this.cancelPublisher.hasSubscribers();
+        if (goalHadSubscribers && !this.goalHasSubscribers) {
+            this.feedbackSubscriberFlag = false;
+            this.resultSubscriberFlag = false;
+            this.statusSubscriberFlag = false;
+        }
+        final Subscriber<T_ACTION_FEEDBACK> feedbackSubscriber = this.serverFeedbackSubscriber;
+        if (!this.feedbackSubscriberFlag && feedbackSubscriber != null) {
+            this.feedbackSubscriberFlag = this.masterStateSnapshot.isTopicPublished(feedbackSubscriber.getTopicName().toString());
+        }
+        if (!this.resultSubscriberFlag) {
+            this.resultSubscriberFlag = this.masterStateSnapshot.isTopicPublished(this.serverResultSubscriber.getTopicName().toString());
+        }
+        if (!this.statusSubscriberFlag) {
+            this.statusSubscriberFlag = this.masterStateSnapshot.isTopicPublished(this.serverStatusSubscriber.getTopicName().toString());
+        }
+    }
+
+    /**
+     * Wait for an actionlib server to connect.
+     * The goal and cancel connections are re-checked on each call, so a server that is gone is not reported as connected.
+     * The wait completes as soon as the connection events of every topic have been received.
+     *
+     * @param timeout The maximum amount of time to wait for an action server. If
+     *                this value is less than or equal to zero, it will wait forever until a
+     *                server is detected.
+     *
+     * @return True if the action server was detected before the timeout and
+     * false otherwise.
+     */
+    final boolean waitForActionServerToStart(final Duration timeout) {
+        final long durationInNanos = timeout.totalNsecs();
+        final long startNanos = System.nanoTime();
+        boolean result = false;
+        long tests = 0;
+        try {
+            while (!result) {
+                tests++;
+                this.checkServerConnection();
+                result = this.isServerConnected();
+                if (!result) {
+                    final long remainingNanos = durationInNanos - (System.nanoTime() - startNanos);
+                    if (durationInNanos > 0 && remainingNanos <= 0) {
+                        break;
+                    }
+                    final long waitMillis = durationInNanos > 0 ?
+                            Math.max(1, Math.min(SERVER_CONNECTION_CHECK_PERIOD_MILLIS, TimeUnit.NANOSECONDS.toMillis(remainingNanos)))
+                            : SERVER_CONNECTION_CHECK_PERIOD_MILLIS;
+                    synchronized (this.serverConnectionMonitor) {
+                        if (!this.isServerConnected()) {
+                            this.serverConnectionMonitor.wait(waitMillis);
+                        }
+                    }
+                    result = this.isServerConnected();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(ExceptionUtils.getStackTrace(e));
+            }
+        }
+
+        if (!result && LOGGER.isErrorEnabled()) {
+
+            LOGGER.error("[Could not connect to Server] tests:" + tests + "] GoalTopic:[" + this.actionName + "/goal] CancelTopic[" + actionName + "/cancel] timeout:[" + timeout + "] \n"
+                    + " [goalHasSubscribers:" + goalHasSubscribers
+                    + "] [cancelHasSubscribers:" + cancelHasSubscribers
+                    + "] [feedbackSubscriberFlag:" + feedbackSubscriberFlag
+                    + "] [resultSubscriberFlag:" + resultSubscriberFlag
+                    + "] [statusSubscriberFlag:" + statusSubscriberFlag + "]"
+            );
+
+        }
+        if (!result && LOGGER.isDebugEnabled()) {
+            LOGGER.debug(" [Server Started:" + result + "] [tests:" + tests + "] Goal Topic:[" + this.actionName + "/goal] CancelTopic[" + actionName + "/cancel] timeout:[" + timeout + "]");
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return ActionClientTransport.class.getSimpleName() + "[node=" + this.connectedNode.getName()
+                + ", actionName=" + this.actionName
+                + ", clients=" + this.clients.size()
+                + ", goalPublisher=" + this.goalPublisher
+                + ", cancelPublisher=" + this.cancelPublisher
+                + ", serverResultSubscriber=" + this.serverResultSubscriber
+                + ", serverFeedbackSubscriber=" + this.serverFeedbackSubscriber
+                + ", serverStatusSubscriber=" + this.serverStatusSubscriber
+                + ", statusSubscriberFlag=" + this.statusSubscriberFlag + "]";
+    }
+}
@@ -19,6 +19,8 @@ package com.github.rosjava_actionlib;
 
 import org.ros.internal.message.Message;
 
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
 /**
@@ -33,11 +35,19 @@ import java.util.concurrent.Future;
 public interface ActionFuture<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message> extends Future<T_ACTION_RESULT> {
 
     /**
+     * The feedback is received only once it is requested with {@link #trackFeedback()} or
+     * {@link #addFeedbackListener(ActionClientFeedbackListener, Executor)}, otherwise this is always null.
      *
-     * @return
+     * @return the latest feedback received for the goal, or null if none has been received
      */
     public T_ACTION_FEEDBACK getLatestFeedback();
 
+    /**
+     * Receive the feedback of this goal until it is done, so that {@link #getLatestFeedback()} is kept up to date.
+     * The feedback topic of the client is subscribed only while some goal or listener needs it.
+     */
+    public void trackFeedback();
+
     /**
      *
      * @return
@@ -55,5 +65,21 @@ public interface ActionFuture<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK e
      * @return
      */
     public Future<Boolean> toBooleanFuture();
+
+    /**
+     * The returned stage is completed when the result is received, so continuations can be chained without
+     * blocking any thread.
+     *
+     * @return a {@link CompletionStage} of the result
+     */
+    public CompletionStage<T_ACTION_RESULT> toCompletionStage();
+
+    /**
+     * The listener receives only the newest feedback of this goal, on the given executor, when it is ready to process it.
+     *
+     * @param listener the feedback listener
+     * @param executor the executor on which the listener will run
+     */
+    public void addFeedbackListener(ActionClientFeedbackListener<T_ACTION_FEEDBACK> listener, Executor executor);
 }
 
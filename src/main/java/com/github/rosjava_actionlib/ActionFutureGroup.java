@@ -0,0 +1,123 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import org.ros.internal.message.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The {@link ActionFuture}s of a batch of goals sent together with {@link ActionClient#sendGoals(java.util.Collection)}.
+ *
+ * @param <T_ACTION_GOAL>
+ * @param <T_ACTION_FEEDBACK>
+ * @param <T_ACTION_RESULT>
+ *
+ * @author Spyros Koukas
+ */
+public final class ActionFutureGroup<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message> {
+    private final List<ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> futures;
+    private final CompletableFuture<List<T_ACTION_RESULT>> allResults;
+    private final CompletableFuture<T_ACTION_RESULT> anyResult;
+
+    /**
+     * @param futures the futures of the goals, in the order the goals were given
+     *
+     * @throws IllegalArgumentException if there are no futures, the first result of an empty group would never be received
+     */
+    ActionFutureGroup(final List<ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> futures) {
+        Objects.requireNonNull(futures);
+        if (futures.isEmpty()) {
+            throw new IllegalArgumentException("A group needs at least one goal");
+        }
+        this.futures = Collections.unmodifiableList(new ArrayList<>(futures));
+
+        final List<CompletableFuture<T_ACTION_RESULT>> results = new ArrayList<>(this.futures.size());
+        for (final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future : this.futures) {
+            results.add(future.toCompletionStage().toCompletableFuture());
+        }
+        final CompletableFuture<?>[] resultsArray = results.toArray(new CompletableFuture<?>[0]);
+
+        this.allResults = CompletableFuture.allOf(resultsArray).thenApply(ignored -> {
+            final List<T_ACTION_RESULT> allResultsList = new ArrayList<>(results.size());
+            for (final CompletableFuture<T_ACTION_RESULT> result : results) {
+                allResultsList.add(result.join());
+            }
+            return Collections.unmodifiableList(allResultsList);
+        });
+        this.anyResult = CompletableFuture.anyOf(resultsArray).thenApply(ActionFutureGroup::castResult);
+    }
+
+    /**
+     * @param result the result of one of the futures of the group, returned as an Object by {@link CompletableFuture#anyOf(CompletableFuture[])}
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static final <T_ACTION_RESULT> T_ACTION_RESULT castResult(final Object result) {
+        return (T_ACTION_RESULT) result;
+    }
+
+    /**
+     * @return the futures of the goals, in the order the goals were given
+     */
+    public final List<ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT>> getFutures() {
+        return this.futures;
+    }
+
+    /**
+     * @return the number of goals in the group
+     */
+    public final int size() {
+        return this.futures.size();
+    }
+
+    /**
+     * @return a stage completed with the results of all the goals, in the order the goals were given, when every goal has its result
+     */
+    public final CompletionStage<List<T_ACTION_RESULT>> allOf() {
+        return this.allResults.minimalCompletionStage();
+    }
+
+    /**
+     * @return a stage completed with the first result received for any of the goals
+     */
+    public final CompletionStage<T_ACTION_RESULT> anyOf() {
+        return this.anyResult.minimalCompletionStage();
+    }
+
+    /**
+     * Cancel every goal of the group.
+     */
+    public final void cancelAll() {
+        for (final ActionFuture<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> future : this.futures) {
+            future.cancel(true);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ActionFutureGroup.class.getSimpleName() + "[size=" + this.futures.size()
+                + ", allDone=" + this.allResults.isDone()
+                + ", anyDone=" + this.anyResult.isDone() + "]";
+    }
+}
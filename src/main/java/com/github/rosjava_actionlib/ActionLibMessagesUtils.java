@@ -22,8 +22,13 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Created at 2020-04-19
@@ -57,6 +62,22 @@ final class ActionLibMessagesUtils {
         return result;
     }
 
+    /**
+     * A goal in a terminal status is not going to change status anymore.
+     *
+     * @param goalStatus
+     *
+     * @return true for {@link GoalStatus#PREEMPTED}, {@link GoalStatus#SUCCEEDED}, {@link GoalStatus#ABORTED},
+     * {@link GoalStatus#REJECTED} and {@link GoalStatus#RECALLED}
+     */
+    public static final boolean isTerminalGoalStatus(final byte goalStatus) {
+        return goalStatus == GoalStatus.PREEMPTED ||
+                goalStatus == GoalStatus.SUCCEEDED ||
+                goalStatus == GoalStatus.ABORTED ||
+                goalStatus == GoalStatus.REJECTED ||
+                goalStatus == GoalStatus.RECALLED;
+    }
+
     /**
      * will return null if goalStatus is null otherwise will call  {@link ActionLibMessagesUtils#goalStatusToString(byte)} on  {@link GoalStatus#getStatus()}
      *
@@ -131,9 +152,90 @@ final class ActionLibMessagesUtils {
 
 
 
+    /**
+     * The generic type of the cached getters (Object)Object
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    /**
+     * The generic type of the cached setters (Object,Object)void
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Per class cache of the getter {@link MethodHandle}s, keyed by the getter name.
+     */
+    private static final ClassValue<ConcurrentMap<String, MethodHandle>> GETTERS = new ClassValue<>() {
+        @Override
+        protected final ConcurrentMap<String, MethodHandle> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Per class cache of the setter {@link MethodHandle}s, keyed by the setter name.
+     */
+    private static final ClassValue<ConcurrentMap<String, MethodHandle>> SETTERS = new ClassValue<>() {
+        @Override
+        protected final ConcurrentMap<String, MethodHandle> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Create a {@link MethodHandle} for the method, adapted to the provided generic type.
+     * Workaround for known bug http://bugs.java.com/bugdatabase/view_bug.do?bug_id=6924232
+     *
+     * @param method
+     * @param methodType
+     *
+     * @return
+     */
+    private static final MethodHandle toMethodHandle(final Method method, final MethodType methodType) {
+        try {
+            method.setAccessible(true); // workaround for known bug http://bugs.java.com/bugdatabase/view_bug.do?bug_id=6924232
+            return MethodHandles.lookup().unreflect(method).asType(methodType);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param type
+     * @param getterMethodName
+     *
+     * @return the cached getter
+     */
+    private static final MethodHandle getGetter(final Class<?> type, final String getterMethodName) {
+        return GETTERS.get(type).computeIfAbsent(getterMethodName, name -> {
+            try {
+                return toMethodHandle(type.getMethod(name), GETTER_TYPE);
+            } catch (final NoSuchMethodException e) {
+                throw new IllegalArgumentException(e);
+            }
+        });
+    }
+
+    /**
+     * @param type
+     * @param setterMethodName
+     *
+     * @return the cached setter, the single argument public method of the type with the provided name
+     */
+    private static final MethodHandle getSetter(final Class<?> type, final String setterMethodName) {
+        return SETTERS.get(type).computeIfAbsent(setterMethodName, name -> {
+            for (final Method method : type.getMethods()) {
+                if (method.getParameterCount() == 1 && name.equals(method.getName())) {
+                    return toMethodHandle(method, SETTER_TYPE);
+                }
+            }
+            throw new IllegalArgumentException(new NoSuchMethodException(type.getName() + "." + name));
+        });
+    }
+
     /**
      * Return the submessage of class R_SUB_MESSAGE from the message T_MESSAGE by using the getter with the provided name in order to workaround known bug.
      * Workaround for known bug http://bugs.java.com/bugdatabase/view_bug.do?bug_id=6924232
+     * The getter is resolved once per message class and then invoked through a cached {@link MethodHandle}.
      *
      * @param message
      * @param getterMethodName
@@ -148,11 +250,10 @@ final class ActionLibMessagesUtils {
         R_SUB_MESSAGE subMessage = null;
 
         try {
-            //"getStatus"
-            final Method m = message.getClass().getMethod(getterMethodName);
-            m.setAccessible(true); // workaround for known bug http://bugs.java.com/bugdatabase/view_bug.do?bug_id=6924232
-            subMessage = (R_SUB_MESSAGE) m.invoke(message);
-        } catch (final Exception e) {
+            subMessage = (R_SUB_MESSAGE) (Object) getGetter(message.getClass(), getterMethodName).invokeExact((Object) message);
+        } catch (final Error e) {
+            throw e;
+        } catch (final Throwable e) {
             logger.error(ExceptionUtils.getStackTrace(e));
         }
         return subMessage;
@@ -161,6 +262,7 @@ final class ActionLibMessagesUtils {
     /**
      * Set the submessage of class R_SUB_MESSAGE in the message T_MESSAGE by using the setter with the provided name in order to workaround known bug.
      * Workaround for known bug http://bugs.java.com/bugdatabase/view_bug.do?bug_id=6924232
+     * The setter is resolved once per message class and then invoked through a cached {@link MethodHandle}.
      *
      * @param message
      * @param setterMethodName
@@ -171,17 +273,13 @@ final class ActionLibMessagesUtils {
         Objects.requireNonNull(message);
         Objects.requireNonNull(setterMethodName);
         try {
-            final Method m = message.getClass().getMethod(setterMethodName);
-            m.setAccessible(true); // workaround for known bug http://bugs.java.com/bugdatabase/view_bug.do?bug_id=6924232
-            m.invoke(message, submessage);
-        } catch (final Exception e) {
+            getSetter(message.getClass(), setterMethodName).invokeExact((Object) message, (Object) submessage);
+        } catch (final Error e) {
+            throw e;
+        } catch (final Throwable e) {
             logger.error(ExceptionUtils.getStackTrace(e));
         }
 
 
     }
 }
-
-
-
-
@@ -26,40 +26,178 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.ros.internal.message.Message;
+import org.ros.message.Duration;
 import org.ros.message.MessageFactory;
 import org.ros.node.ConnectedNode;
 import org.ros.node.topic.Publisher;
 import org.ros.node.topic.Subscriber;
 
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Class to encapsulate the actionlib server's communication and goal management.
+ * <p>
+ * The status messages are not snapshots: each goal keeps a single {@link GoalStatus} that is updated in place,
+ * and the status ticks publish it as is. Since the messages are serialized asynchronously, a published status message
+ * may report a later status of a goal than the one it had when the message was published. The status of a goal only
+ * moves forward, so a client never sees it go back, it only sees a transition earlier.
+ * </p>
  *
  * @author Spyros Koukas
  * @author Ernesto Corbellini ecorbellini@ekumenlabs.com
  */
-public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message> {
+public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message> implements AutoCloseable {
 
     private static final Log LOGGER = LogFactory.getLog(ActionServer.class);
 
     //default status_frequency is 5Hz for python and cpp
     private static final long DEFAULT_STATUS_TICK_PERIOD_MILLIS = 200;
-    private static final long DEFAULT_STATUS_TICK_DELAY_MILLIS = 200;
+    /**
+     * The fraction of the tick period between the ticks of consecutive servers, the golden ratio spreads the ticks of any number of servers evenly
+     */
+    private static final double STATUS_TICK_STAGGER = 0.6180339887498949;
+    private static final AtomicLong SERVER_COUNT = new AtomicLong(0);
+    /**
+     * The status ticks of all the servers of the JVM run on a single daemon thread, each takes a few microseconds
+     */
+    private static final ScheduledThreadPoolExecutor STATUS_TICK_EXECUTOR = createStatusTickExecutor();
+    /**
+     * The period of the status messages when all the tracked goals are terminal and no status changes
+     */
+    private static final long DEFAULT_IDLE_STATUS_PERIOD_MILLIS = 1000;
+    /**
+     * Same as the default status_list_timeout of the cpp server
+     */
+    private static final long DEFAULT_TERMINAL_GOAL_RETENTION_MILLIS = 5000;
 
     /**
-     * Keeps the status of each goal
+     * Keeps the status of each goal.
+     * The status message of the goal is created once and updated in place on every transition, the status ticks publish it as is,
+     * so a status message that is still being published may carry a later status.
      *
      * @param <T_ACTION_GOAL_TYPE> the T_ACTION_GOAL type
      */
     private static final class ServerGoal<T_ACTION_GOAL_TYPE extends Message> {
+        private final String goalId;
         private final T_ACTION_GOAL_TYPE goal;
         private final ServerStateMachine stateMachine = new ServerStateMachine();
-
-        private ServerGoal(final T_ACTION_GOAL_TYPE goal) {
+        private final GoalStatus goalStatus;
+        // System.nanoTime() when the goal reached a terminal status, guarded by stateMachine
+        private long terminalNanos = 0;
+
+        /**
+         * @param goalId
+         * @param goal
+         * @param goalStatus a new status message with the id of the goal
+         */
+        private ServerGoal(final String goalId, final T_ACTION_GOAL_TYPE goal, final GoalStatus goalStatus) {
+            this.goalId = goalId;
             this.goal = goal;
+            this.goalStatus = goalStatus;
+            this.goalStatus.setStatus(this.stateMachine.getState());
+        }
+
+        /**
+         * @param event one of {@link ServerStateMachine.Events}
+         *
+         * @return true if the goal reached a terminal status with this transition
+         */
+        private final boolean transition(final int event) {
+            synchronized (this.stateMachine) {
+                this.stateMachine.transition(event);
+                final byte state = this.stateMachine.getState();
+                this.goalStatus.setStatus(state);
+                if (this.terminalNanos == 0 && ActionLibMessagesUtils.isTerminalGoalStatus(state)) {
+                    this.terminalNanos = System.nanoTime();
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        /**
+         * @return the {@link System#nanoTime()} when the goal reached a terminal status
+         */
+        private final long getTerminalNanos() {
+            synchronized (this.stateMachine) {
+                return this.terminalNanos;
+            }
+        }
+    }
+
+    /**
+     * The resources of a server that are released by {@link #finish()}, or by the {@link ResourceCleaner} if the server is collected without being finished.
+     * It must not reference the server.
+     */
+    private static final class ServerResources implements Runnable {
+        private final String actionName;
+        private final Publisher<?>[] publishers;
+        private final Subscriber<?>[] subscribers;
+        // scheduled as the last step of the construction of the server
+        private volatile ScheduledFuture<?> statusTick = null;
+        private volatile boolean finished = false;
+
+        private ServerResources(final String actionName, final Publisher<?>[] publishers, final Subscriber<?>[] subscribers) {
+            this.actionName = actionName;
+            this.publishers = publishers;
+            this.subscribers = subscribers;
+        }
+
+        /**
+         * Stop the status tick and shut down the topics of the server and the client concurrently, with one deadline.
+         */
+        @Override
+        public final void run() {
+            if (!this.finished && LOGGER.isWarnEnabled()) {
+                LOGGER.warn("ActionServer of action:[" + this.actionName + "] was not finished before it became unreachable");
+            }
+            final ScheduledFuture<?> statusTick = this.statusTick;
+            if (statusTick != null) {
+                statusTick.cancel(false);
+            }
+
+            final TopicShutdown topicShutdown = new TopicShutdown(this.actionName);
+            for (final Publisher<?> publisher : this.publishers) {
+                topicShutdown.add(publisher);
+            }
+            for (final Subscriber<?> subscriber : this.subscribers) {
+                topicShutdown.add(subscriber);
+            }
+            topicShutdown.shutdown();
+        }
+    }
+
+    /**
+     * Runs a status action of the server, does not keep the server reachable
+     */
+    private static final class StatusTickTask implements Runnable {
+        private final WeakReference<ActionServer<?, ?, ?>> serverReference;
+        private final Consumer<ActionServer<?, ?, ?>> statusAction;
+
+        private StatusTickTask(final ActionServer<?, ?, ?> server, final Consumer<ActionServer<?, ?, ?>> statusAction) {
+            this.serverReference = new WeakReference<>(server);
+            this.statusAction = statusAction;
+        }
+
+        @Override
+        public final void run() {
+            // the tick of a collected server is cancelled by the ResourceCleaner
+            final ActionServer<?, ?, ?> server = this.serverReference.get();
+            if (server != null) {
+                this.statusAction.accept(server);
+            }
         }
     }
 
@@ -70,8 +208,20 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
     private final String actionName;
     private final ActionServerListener<T_ACTION_GOAL> actionServerListener;
     private final MessageFactory messageFactory;
-    private final Timer statusTick = new Timer();
+    private final long statusTickPeriodNanos;
     private final ConcurrentHashMap<String, ServerGoal<T_ACTION_GOAL>> goalIdToGoalStatusMap = new ConcurrentHashMap<>();
+    /**
+     * The goals in terminal status, in the order they reached it, they are evicted after the retention time or when there are too many
+     */
+    private final ConcurrentLinkedQueue<ServerGoal<T_ACTION_GOAL>> terminalGoals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger terminalGoalCount = new AtomicInteger(0);
+    private volatile long terminalGoalRetentionNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TERMINAL_GOAL_RETENTION_MILLIS);
+    private volatile int maxTerminalGoals = 0;
+    private final AtomicBoolean statusPublishRequested = new AtomicBoolean(false);
+    private volatile long lastStatusPublishNanos = System.nanoTime();
+    private volatile long idleStatusPeriodNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_IDLE_STATUS_PERIOD_MILLIS);
+    private final ServerResources resources;
+    private final Cleaner.Cleanable cleanable;
 
 
     //Non Final
@@ -101,8 +251,35 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
             , final String actionGoalType
             , final String actionFeedbackType
             , final String actionResultType) {
+        this(connectedNode, actionServerListener, actionName, actionGoalType, actionFeedbackType, actionResultType, Duration.fromMillis(DEFAULT_STATUS_TICK_PERIOD_MILLIS));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectedNode        Object representing a node connected to a ROS master.
+     * @param actionServerListener the Listener of the T_ACTION_GOAL, actionServerListener is used to consume incoming goals
+     * @param actionName           String that identifies the name of this action. This name
+     *                             is used for naming the ROS topics.
+     * @param actionGoalType       String holding the type for the action goal message.
+     * @param actionFeedbackType   String holding the type for the action feedback
+     *                             message.
+     * @param actionResultType     String holding the type for the action result
+     *                             message.
+     * @param statusTickPeriod     the period of the status messages while there are goals that are not terminal, 200ms by default.
+     *                             The status ticks of all the servers share a single thread and are staggered.
+     */
+    public ActionServer(final ConnectedNode connectedNode
+            , final ActionServerListener<T_ACTION_GOAL> actionServerListener
+            , final String actionName
+            , final String actionGoalType
+            , final String actionFeedbackType
+            , final String actionResultType
+            , final Duration statusTickPeriod) {
         Objects.requireNonNull(connectedNode);
         Objects.requireNonNull(actionServerListener);
+        Objects.requireNonNull(statusTickPeriod);
+        Preconditions.checkArgument(statusTickPeriod.totalNsecs() > 0);
         Preconditions.checkArgument(StringUtils.isNotBlank(actionName));
         Preconditions.checkArgument(StringUtils.isNotBlank(actionGoalType));
         Preconditions.checkArgument(StringUtils.isNotBlank(actionFeedbackType));
@@ -114,9 +291,39 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
         this.actionFeedbackType = actionFeedbackType;
         this.actionResultType = actionResultType;
         this.messageFactory = connectedNode.getTopicMessageFactory();
+        this.statusTickPeriodNanos = statusTickPeriod.totalNsecs();
         this.connect(connectedNode);
+        this.resources = new ServerResources(actionName
+                , new Publisher<?>[]{this.statusPublisher, this.feedbackPublisher, this.resultPublisher}
+                , new Subscriber<?>[]{this.goalSubscriber, this.cancelSubscriber});
+        this.cleanable = ResourceCleaner.register(this, this.resources);
+        // the goals and cancels are received only once the server is fully constructed
+        this.addClientListeners();
+        // nothing is left on the shared executor if any of the previous steps fails
+        this.scheduleStatusTick();
+    }
+
+
+    /**
+     * @return the executor of the status ticks of all the servers
+     */
+    private static final ScheduledThreadPoolExecutor createStatusTickExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "ActionServer-status-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the ticks of finished servers do not stay in the queue
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
     }
 
+    /**
+     * @return the number of status ticks and status publishes scheduled on the shared executor, for all the servers
+     */
+    static final int getScheduledStatusTicks() {
+        return STATUS_TICK_EXECUTOR.getQueue().size();
+    }
 
     /**
      * Publish the current status information for the tracked goals on the /status topic.
@@ -157,12 +364,16 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
         this.statusPublisher = connectedNode.newPublisher(this.getActionStatusTopic(), GoalStatusArray._TYPE);
         this.feedbackPublisher = connectedNode.newPublisher(this.getActionFeedbackTopic(), actionFeedbackType);
         this.resultPublisher = connectedNode.newPublisher(this.getActionResultTopic(), actionResultType);
-        this.statusTick.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public final void run() {
-                ActionServer.this.sendStatusTick();
-            }
-        }, DEFAULT_STATUS_TICK_DELAY_MILLIS, DEFAULT_STATUS_TICK_PERIOD_MILLIS);
+    }
+
+    /**
+     * Schedule the status tick of this server on the shared executor, it is cancelled when the resources are released.
+     */
+    private final void scheduleStatusTick() {
+        // a full period and a staggered fraction of it, so that the ticks of the servers do not coincide
+        final double stagger = (SERVER_COUNT.getAndIncrement() * STATUS_TICK_STAGGER) % 1.0;
+        final long initialDelayNanos = this.statusTickPeriodNanos + (long) (stagger * this.statusTickPeriodNanos);
+        this.resources.statusTick = STATUS_TICK_EXECUTOR.scheduleAtFixedRate(new StatusTickTask(this, ActionServer::heartbeat), initialDelayNanos, this.statusTickPeriodNanos, TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -233,48 +444,6 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
     }
 
 
-    /**
-     * Stop publishing the action server topics.
-     */
-    private final void unpublishServer() {
-
-        try {
-            this.statusTick.purge();
-            this.statusTick.cancel();
-
-
-        } catch (final Exception exception) {
-            LOGGER.error(ExceptionUtils.getStackTrace(exception));
-        }
-
-
-        if (this.statusPublisher != null) {
-            try {
-                this.statusPublisher.shutdown(5, TimeUnit.SECONDS);
-                this.statusPublisher = null;
-            } catch (final Exception exception) {
-                LOGGER.error(ExceptionUtils.getStackTrace(exception));
-            }
-        }
-        if (this.feedbackPublisher != null) {
-            try {
-                this.feedbackPublisher.shutdown(5, TimeUnit.SECONDS);
-                this.feedbackPublisher = null;
-            } catch (final Exception exception) {
-                LOGGER.error(ExceptionUtils.getStackTrace(exception));
-            }
-        }
-        if (this.resultPublisher != null) {
-            try {
-                this.resultPublisher.shutdown(5, TimeUnit.SECONDS);
-                this.resultPublisher = null;
-            } catch (final Exception exception) {
-                LOGGER.error(ExceptionUtils.getStackTrace(exception));
-            }
-        }
-
-    }
-
     /**
      * Subscribe to the action client's topics: goal and cancel.
      *
@@ -283,24 +452,16 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
     private final void subscribeToClient(final ConnectedNode node) {
         this.goalSubscriber = node.newSubscriber(this.getActionGoalTopic(), actionGoalType);
         this.cancelSubscriber = node.newSubscriber(this.getActionCancelTopic(), GoalID._TYPE);
-
-        this.goalSubscriber.addMessageListener(this::gotGoal);
-
-        this.cancelSubscriber.addMessageListener(this::gotCancel);
     }
 
     /**
-     * Unsubscribe from the client's topics.
+     * Listen to the goals and cancels of the action clients.
      */
-    private final void unsubscribeToClient() {
-        if (this.goalSubscriber != null) {
-            this.goalSubscriber.shutdown(5, TimeUnit.SECONDS);
-            this.goalSubscriber = null;
-        }
-        if (this.cancelSubscriber != null) {
-            this.cancelSubscriber.shutdown(5, TimeUnit.SECONDS);
-            this.cancelSubscriber = null;
-        }
+    private final void addClientListeners() {
+        // the subscribers are referenced by the node, the listeners must not keep the server reachable
+        this.goalSubscriber.addMessageListener(new ResourceCleaner.WeakMessageListener<>(this, ActionServer::gotGoal));
+
+        this.cancelSubscriber.addMessageListener(new ResourceCleaner.WeakMessageListener<>(this, ActionServer::gotCancel));
     }
 
     /**
@@ -311,8 +472,15 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
         if (goal != null) {
             final String goalIdString = getGoalId(goal).getId();
 
-            // start tracking this newly received goal
-            this.goalIdToGoalStatusMap.put(goalIdString, new ServerGoal<>(goal));
+            // start tracking this newly received goal, a goal received again is a resend of a client that missed its status
+            if (this.goalIdToGoalStatusMap.containsKey(goalIdString)
+                    || this.goalIdToGoalStatusMap.putIfAbsent(goalIdString, this.newServerGoal(goal)) != null) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Goal:[" + goalIdString + "] of action:[" + this.actionName + "] received again, ignored");
+                }
+                this.sendStatusTick();
+                return;
+            }
 
             //this#actionServerListener is guaranteed to never be null, this call is for information purposes only
             this.actionServerListener.goalReceived(goal);
@@ -327,9 +495,23 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
                 this.setRejected(goalIdString);
             }
             this.sendStatusTick();
+            if (accepted) {
+                this.actionServerListener.goalAccepted(goal);
+            }
         }
     }
 
+    /**
+     * @param goal
+     *
+     * @return the goal with its status message
+     */
+    private final ServerGoal<T_ACTION_GOAL> newServerGoal(final T_ACTION_GOAL goal) {
+        final GoalStatus goalStatus = this.messageFactory.newFromType(GoalStatus._TYPE);
+        goalStatus.setGoalId(getGoalId(goal));
+        return new ServerGoal<>(goalStatus.getGoalId().getId(), goal, goalStatus);
+    }
+
     /**
      *  Called when we get a message on the subscribed cancel topic.
      *
@@ -346,16 +528,18 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
      * This is used like a heartbeat to update the status of every tracked goal.
      */
     public final void sendStatusTick() {
+        // the published status includes every change requested so far
+        this.statusPublishRequested.set(false);
         try {
+            final long nowNanos = System.nanoTime();
+            this.lastStatusPublishNanos = nowNanos;
+            this.evictTerminalGoals(nowNanos);
             final GoalStatusArray status = this.messageFactory.newFromType(GoalStatusArray._TYPE);
-            final List<GoalStatus> goalStatusList = new ArrayList<>();
+            final List<GoalStatus> goalStatusList = new ArrayList<>(this.goalIdToGoalStatusMap.size());
 
+            // the cached status messages are up to date, a tick only builds the list
             for (final ServerGoal<T_ACTION_GOAL> serverGoal : this.goalIdToGoalStatusMap.values()) {
-
-                final GoalStatus goalStatus = this.messageFactory.newFromType(GoalStatus._TYPE);
-                goalStatus.setGoalId(getGoalId(serverGoal.goal));
-                goalStatus.setStatus((byte) serverGoal.stateMachine.getState());
-                goalStatusList.add(goalStatus);
+                goalStatusList.add(serverGoal.goalStatus);
             }
 
             status.setStatusList(goalStatusList);
@@ -367,6 +551,56 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
 
     }
 
+    /**
+     * Called on every tick of the status timer, publishes the status if nothing has been published for a period.
+     * The period is the tick period while any goal is not terminal, and the idle period otherwise.
+     */
+    private final void heartbeat() {
+        final boolean idle = this.goalIdToGoalStatusMap.size() <= this.terminalGoalCount.get();
+        final long periodNanos = idle ? this.idleStatusPeriodNanos : this.statusTickPeriodNanos;
+        // half a tick of tolerance for the jitter of the timer
+        if (System.nanoTime() - this.lastStatusPublishNanos >= periodNanos - this.statusTickPeriodNanos / 2) {
+            this.sendStatusTick();
+        }
+    }
+
+    /**
+     * Publish the status as soon as possible on the timer thread.
+     * The changes requested before the status is published are coalesced into a single status message.
+     */
+    private final void requestStatusPublish() {
+        if (this.statusPublishRequested.compareAndSet(false, true)) {
+            try {
+                STATUS_TICK_EXECUTOR.execute(new StatusTickTask(this, ActionServer::publishRequestedStatus));
+            } catch (final RejectedExecutionException rejectedExecutionException) {
+                if (LOGGER.isErrorEnabled()) {
+                    LOGGER.error(ExceptionUtils.getStackTrace(rejectedExecutionException));
+                }
+            }
+        }
+    }
+
+    /**
+     * Publish the status unless it has already been published since it was requested.
+     */
+    private final void publishRequestedStatus() {
+        if (this.statusPublishRequested.get() && !this.resources.finished) {
+            this.sendStatusTick();
+        }
+    }
+
+    /**
+     * The status is published on every change of the status of a goal, and periodically as a heartbeat.
+     * While all the tracked goals are terminal and nothing changes, the heartbeat slows down to the idle period,
+     * by default 1 second, so that idle servers do not flood the network.
+     *
+     * @param idleStatusPeriod the period of the status messages of an idle server, it is rounded to the status tick period
+     */
+    public final void setIdleStatusPeriod(final Duration idleStatusPeriod) {
+        Objects.requireNonNull(idleStatusPeriod);
+        this.idleStatusPeriodNanos = Math.max(0, idleStatusPeriod.totalNsecs());
+    }
+
     /**
      * @return a new T_ACTION_RESULT result message
      */
@@ -414,12 +648,82 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
         return ret;
     }
 
+    /**
+     * @param goalIdString
+     * @param event        one of {@link ServerStateMachine.Events}
+     */
+    private final void transition(final String goalIdString, final int event) {
+        final ServerGoal<T_ACTION_GOAL> serverGoal = this.goalIdToGoalStatusMap.get(goalIdString);
+        if (serverGoal == null) {
+            this.unknownGoal(goalIdString);
+            return;
+        }
+        if (serverGoal.transition(event)) {
+            this.terminalGoals.add(serverGoal);
+            this.terminalGoalCount.incrementAndGet();
+        }
+        this.requestStatusPublish();
+    }
+
+    /**
+     * A goal that is not tracked, because it was never received or because it was evicted after it became terminal, is ignored.
+     *
+     * @param goalIdString
+     */
+    private final void unknownGoal(final String goalIdString) {
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.warn("Goal:[" + goalIdString + "] of action:[" + this.actionName + "] is not tracked, ignored");
+        }
+    }
+
+    /**
+     * Stop tracking the terminal goals that are retained for longer than the retention time, and the oldest ones above the maximum count.
+     *
+     * @param nowNanos
+     */
+    private final void evictTerminalGoals(final long nowNanos) {
+        final long retentionNanos = this.terminalGoalRetentionNanos;
+        final int maxGoals = this.maxTerminalGoals;
+        ServerGoal<T_ACTION_GOAL> oldest;
+        while ((oldest = this.terminalGoals.peek()) != null
+                && (nowNanos - oldest.getTerminalNanos() > retentionNanos || (maxGoals > 0 && this.terminalGoalCount.get() > maxGoals))) {
+            if (this.terminalGoals.remove(oldest)) {
+                this.terminalGoalCount.decrementAndGet();
+                this.goalIdToGoalStatusMap.remove(oldest.goalId, oldest);
+            }
+        }
+    }
+
+    /**
+     * Goals in a terminal status are reported in the status messages for a while, so that the clients that missed their result
+     * can still see their final status, and then are no longer tracked.
+     * By default terminal goals are retained for 5 seconds, as with the status_list_timeout of the cpp server, without a maximum count.
+     *
+     * @param retention        how long the terminal goals are retained, zero to evict them on the next status tick
+     * @param maxTerminalGoals the maximum number of terminal goals retained, the oldest are evicted first, zero for no limit
+     */
+    public final void setTerminalGoalRetention(final Duration retention, final int maxTerminalGoals) {
+        Objects.requireNonNull(retention);
+        if (maxTerminalGoals < 0) {
+            throw new IllegalArgumentException("maxTerminalGoals:" + maxTerminalGoals + " should not be negative");
+        }
+        this.maxTerminalGoals = maxTerminalGoals;
+        this.terminalGoalRetentionNanos = Math.max(0, retention.totalNsecs());
+    }
+
+    /**
+     * @return the number of goals tracked by the server, including the retained terminal goals
+     */
+    public final int getTrackedGoals() {
+        return this.goalIdToGoalStatusMap.size();
+    }
+
     /**
      * Express a succeed event for this goal. The state of the goal will be updated.
      * @param goalIdString
      */
     public final void setSucceed(final String goalIdString) {
-        this.goalIdToGoalStatusMap.get(goalIdString).stateMachine.transition(ServerStateMachine.Events.SUCCEED);
+        this.transition(goalIdString, ServerStateMachine.Events.SUCCEED);
     }
 
     /**
@@ -428,8 +732,8 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
      */
     public final void setPreempt(final String goalIdString) {
 
-        this.goalIdToGoalStatusMap.get(goalIdString).stateMachine.transition(ServerStateMachine.Events.CANCEL_REQUEST);
-        this.goalIdToGoalStatusMap.get(goalIdString).stateMachine.transition(ServerStateMachine.Events.CANCEL);
+        this.transition(goalIdString, ServerStateMachine.Events.CANCEL_REQUEST);
+        this.transition(goalIdString, ServerStateMachine.Events.CANCEL);
     }
 
     /**
@@ -437,7 +741,7 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
      */
     private final void setAccepted(final String goalIdString) {
         // the user accepted the goal
-        this.goalIdToGoalStatusMap.get(goalIdString).stateMachine.transition(ServerStateMachine.Events.ACCEPT);
+        this.transition(goalIdString, ServerStateMachine.Events.ACCEPT);
     }
 
     /**
@@ -446,18 +750,19 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
      */
     private final void setRejected(final String goalIdString) {
         // the user rejected the goal
-        this.goalIdToGoalStatusMap.get(goalIdString).stateMachine.transition(ServerStateMachine.Events.REJECT);
+        this.transition(goalIdString, ServerStateMachine.Events.REJECT);
     }
 
     /**
      * Express an aborted event for this goal. The state of the goal will be updated.
      */
     public final void setAbort(final String goalIdString) {
-        this.goalIdToGoalStatusMap.get(goalIdString).stateMachine.transition(ServerStateMachine.Events.ABORT);
+        this.transition(goalIdString, ServerStateMachine.Events.ABORT);
     }
 
     /**
      * Set goal ID and state information to the goal status message.
+     * The message is left unchanged if the goal is not tracked.
      *
      * @param goalStatus GoalStatus message.
      * @param gidString  String identifying the goal.
@@ -466,8 +771,12 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
      */
     public final void setGoalStatus(final GoalStatus goalStatus, final String gidString) {
         final ServerGoal<T_ACTION_GOAL> serverGoal = this.goalIdToGoalStatusMap.get(gidString);
-        goalStatus.setGoalId(getGoalId(serverGoal.goal));
-        goalStatus.setStatus(serverGoal.stateMachine.getState());
+        if (serverGoal == null) {
+            this.unknownGoal(gidString);
+            return;
+        }
+        goalStatus.setGoalId(serverGoal.goalStatus.getGoalId());
+        goalStatus.setStatus(serverGoal.goalStatus.getStatus());
     }
 
     /**
@@ -481,12 +790,25 @@ public final class ActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK
     /**
      * Finish the action server.
      * Unregister publishers and listeners.
-     * The programmer need to ensure that this method is called when the program has finished using this {@link ActionServer}
+     * The programmer need to ensure that this method is called when the program has finished using this {@link ActionServer}.
+     * A server that becomes unreachable without being finished is finished by a background thread, but its topics stay open until the garbage collector finds it.
      */
     public final void finish() {
-        unpublishServer();
-        unsubscribeToClient();
+        this.resources.finished = true;
+        this.cleanable.clean();
+        this.statusPublisher = null;
+        this.feedbackPublisher = null;
+        this.resultPublisher = null;
+        this.goalSubscriber = null;
+        this.cancelSubscriber = null;
+    }
 
+    /**
+     * Same as {@link #finish()}, so that the server can be used in a try-with-resources statement.
+     */
+    @Override
+    public final void close() {
+        this.finish();
     }
 
 }
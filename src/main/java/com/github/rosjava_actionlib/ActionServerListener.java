@@ -54,4 +54,13 @@ public interface ActionServerListener<T_ACTION_GOAL extends Message> {
      * otherwise.
      */
     boolean acceptGoal(T_ACTION_GOAL goal);
+
+    /**
+     * This callback is called after an accepted goal has become active and its status has been published,
+     * so the goal can be executed from here on.
+     *
+     * @param goal The action goal accepted.
+     */
+    default void goalAccepted(final T_ACTION_GOAL goal) {
+    }
 }
@@ -0,0 +1,310 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatusArray;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.internal.message.Message;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps an {@link ActionClientListener} so that its callbacks run on an {@link Executor} instead of the rosjava subscriber thread.
+ * Each wrapper has its own bounded queue, so a slow listener only delays its own callbacks.
+ * The callbacks of a listener are delivered one at a time in the order the messages were received.
+ * The capacity and the {@link OverflowPolicy} apply to the feedback and status messages only, the results are always queued,
+ * since a dropped result can not be recovered from the later messages.
+ *
+ * @param <T_ACTION_FEEDBACK>
+ * @param <T_ACTION_RESULT>
+ *
+ * @author Spyros Koukas
+ * @see ActionClient#addAsyncListener(ActionClientListener, Executor, int, OverflowPolicy)
+ */
+public final class AsyncActionClientListener<T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message>
+        implements ActionClientListener<T_ACTION_FEEDBACK, T_ACTION_RESULT> {
+
+    /**
+     * What to do with a feedback or status message when the queue of the listener is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the oldest queued message to make room for the new one.
+         */
+        DROP_OLDEST,
+        /**
+         * Discard the new message.
+         */
+        DROP_NEWEST,
+        /**
+         * Block the subscriber thread until there is room in the queue.
+         */
+        BLOCK
+    }
+
+    /**
+     * A queued callback
+     */
+    private static final class Event {
+        private final Runnable callback;
+        /**
+         * True for the messages the {@link OverflowPolicy} applies to
+         */
+        private final boolean droppable;
+
+        private Event(final Runnable callback, final boolean droppable) {
+            this.callback = callback;
+            this.droppable = droppable;
+        }
+    }
+
+    private static final Log LOGGER = LogFactory.getLog(AsyncActionClientListener.class);
+
+    private final ActionClientListener<T_ACTION_FEEDBACK, T_ACTION_RESULT> delegate;
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    /**
+     * Guarded by itself, waited on by the {@link OverflowPolicy#BLOCK} producers
+     */
+    private final Deque<Event> queue = new ArrayDeque<>();
+    /**
+     * The number of queued droppable events, guarded by {@link #queue}
+     */
+    private int droppableEvents = 0;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong deliveredCount = new AtomicLong(0);
+    private final AtomicLong maxQueueDepth = new AtomicLong(0);
+
+    /**
+     * @param delegate       the listener to invoke
+     * @param executor       the executor on which the callbacks of the delegate will run
+     * @param capacity       the maximum number of queued feedback and status messages
+     * @param overflowPolicy what to do when the queue is full
+     */
+    public AsyncActionClientListener(final ActionClientListener<T_ACTION_FEEDBACK, T_ACTION_RESULT> delegate
+            , final Executor executor
+            , final int capacity
+            , final OverflowPolicy overflowPolicy) {
+        Objects.requireNonNull(delegate);
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(overflowPolicy);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity:" + capacity + " should be positive");
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public final void feedbackReceived(final T_ACTION_FEEDBACK feedback) {
+        this.enqueue(() -> this.delegate.feedbackReceived(feedback), true);
+    }
+
+    @Override
+    public final void resultReceived(final T_ACTION_RESULT result) {
+        this.enqueue(() -> this.delegate.resultReceived(result), false);
+    }
+
+    @Override
+    public final void statusReceived(final GoalStatusArray status) {
+        this.enqueue(() -> this.delegate.statusReceived(status), true);
+    }
+
+    /**
+     * @param callback
+     * @param droppable true if the {@link OverflowPolicy} applies to the callback, false if it is always queued
+     */
+    private final void enqueue(final Runnable callback, final boolean droppable) {
+        synchronized (this.queue) {
+            boolean queued = true;
+            if (droppable && this.droppableEvents >= this.capacity) {
+                switch (this.overflowPolicy) {
+                    case DROP_OLDEST:
+                        this.removeOldestDroppable();
+                        this.droppedCount.incrementAndGet();
+                        break;
+                    case BLOCK:
+                        try {
+                            while (this.droppableEvents >= this.capacity) {
+                                this.queue.wait();
+                            }
+                        } catch (final InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            this.droppedCount.incrementAndGet();
+                            queued = false;
+                        }
+                        break;
+                    case DROP_NEWEST:
+                    default:
+                        this.droppedCount.incrementAndGet();
+                        queued = false;
+                        break;
+                }
+            }
+            if (queued) {
+                this.queue.add(new Event(callback, droppable));
+                if (droppable) {
+                    this.droppableEvents++;
+                }
+                final int queueDepth = this.queue.size();
+                if (queueDepth > this.maxQueueDepth.get()) {
+                    this.maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+                }
+            }
+        }
+        this.scheduleDrain();
+    }
+
+    /**
+     * Must be called holding the lock of {@link #queue}.
+     */
+    private final void removeOldestDroppable() {
+        final Iterator<Event> iterator = this.queue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().droppable) {
+                iterator.remove();
+                this.droppableEvents--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the next event or null if the queue is empty
+     */
+    private final Event poll() {
+        synchronized (this.queue) {
+            final Event event = this.queue.poll();
+            if (event != null && event.droppable) {
+                this.droppableEvents--;
+                this.queue.notifyAll();
+            }
+            return event;
+        }
+    }
+
+    /**
+     * Submit the drain task unless it is already submitted.
+     */
+    private final void scheduleDrain() {
+        if (this.getQueueDepth() > 0 && this.drainScheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this.drainTask);
+            } catch (final RejectedExecutionException ree) {
+                this.drainScheduled.set(false);
+                if (LOGGER.isErrorEnabled()) {
+                    LOGGER.error(ExceptionUtils.getStackTrace(ree));
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver at most {@link #capacity} queued messages, then resubmit itself if more are queued,
+     * so a busy listener does not monopolize a shared executor.
+     */
+    private final void drain() {
+        try {
+            Event event;
+            for (int i = 0; i < this.capacity && (event = this.poll()) != null; i++) {
+                try {
+                    event.callback.run();
+                } catch (final RuntimeException e) {
+                    if (LOGGER.isErrorEnabled()) {
+                        LOGGER.error(ExceptionUtils.getStackTrace(e));
+                    }
+                }
+                this.deliveredCount.incrementAndGet();
+            }
+        } finally {
+            this.drainScheduled.set(false);
+            this.scheduleDrain();
+        }
+    }
+
+    /**
+     * Getter for delegate
+     *
+     * @return delegate
+     **/
+    public final ActionClientListener<T_ACTION_FEEDBACK, T_ACTION_RESULT> getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Getter for overflowPolicy
+     *
+     * @return overflowPolicy
+     **/
+    public final OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    /**
+     * @return the number of messages currently waiting to be delivered
+     */
+    public final int getQueueDepth() {
+        synchronized (this.queue) {
+            return this.queue.size();
+        }
+    }
+
+    /**
+     * @return the highest number of messages that have been waiting to be delivered
+     */
+    public final long getMaxQueueDepth() {
+        return this.maxQueueDepth.get();
+    }
+
+    /**
+     * @return the number of feedback and status messages that have been dropped because the queue was full
+     */
+    public final long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * @return the number of messages that have been delivered to the delegate
+     */
+    public final long getDeliveredCount() {
+        return this.deliveredCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return AsyncActionClientListener.class.getSimpleName() + "[delegate=" + this.delegate
+                + ", overflowPolicy=" + this.overflowPolicy
+                + ", capacity=" + this.capacity
+                + ", queueDepth=" + this.getQueueDepth()
+                + ", dropped=" + this.droppedCount.get()
+                + ", delivered=" + this.deliveredCount.get() + "]";
+    }
+}
@@ -17,92 +17,475 @@
 
 package com.github.rosjava_actionlib;
 
+import actionlib_msgs.GoalStatus;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.ros.internal.message.Message;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Class that binds and action goal with a state machine to track its state.
+ * Class that binds each action goal of a client with a state machine to track its state.
+ * Goals are kept in a concurrent table keyed by their goal id, so every in-flight goal is tracked independently.
  *
  * @author Ernesto Corbellini ecorbellini@ekumenlabs.com
+ * @author Spyros Koukas
  */
 final class ClientGoalManager<T_ACTION_GOAL extends Message> {
-    private ActionGoal<T_ACTION_GOAL> actionGoal = null;
-    private final ClientStateMachine stateMachine;
+    private static final Log LOGGER = LogFactory.getLog(ClientGoalManager.class);
 
     /**
-     * Getter for stateMachine
+     * The states in which the server is expected to report the goal in its status arrays
+     */
+    private static final Set<ClientState> REPORTED_STATES = Collections.unmodifiableSet(EnumSet.of(ClientState.PENDING
+            , ClientState.ACTIVE
+            , ClientState.WAITING_FOR_CANCEL_ACK
+            , ClientState.RECALLING
+            , ClientState.PREEMPTING));
+
+    /**
+     * One {@link LatencyHistogram} per {@link GoalLatencyPhase}, shared by the goals of a manager.
+     */
+    static final class LatencyMetrics {
+        private final LatencyHistogram[] histograms = new LatencyHistogram[GoalLatencyPhase.values().length];
+
+        /**
+         *
+         */
+        private LatencyMetrics() {
+            for (int i = 0; i < this.histograms.length; i++) {
+                this.histograms[i] = new LatencyHistogram();
+            }
+        }
+
+        /**
+         * @param phase
+         * @param startNanos the start of the phase, as returned by {@link System#nanoTime()}, or 0 if the start was not observed
+         * @param endNanos   the end of the phase, as returned by {@link System#nanoTime()}
+         */
+        private final void record(final GoalLatencyPhase phase, final long startNanos, final long endNanos) {
+            if (startNanos != 0) {
+                this.histograms[phase.ordinal()].recordNanos(endNanos - startNanos);
+            }
+        }
+
+        /**
+         * @param phase
+         *
+         * @return
+         */
+        final LatencyHistogram.Snapshot snapshot(final GoalLatencyPhase phase) {
+            return this.histograms[phase.ordinal()].snapshot();
+        }
+    }
+
+    /**
+     * Binds a single action goal with the state machine that tracks its state.
      *
-     * @return stateMachine
-     **/
-    final ClientStateMachine getStateMachine() {
-        return stateMachine;
+     * @param <T_ACTION_GOAL_TYPE> the T_ACTION_GOAL type
+     */
+    static final class ClientGoal<T_ACTION_GOAL_TYPE extends Message> {
+        private final String goalId;
+        private final ActionGoal<T_ACTION_GOAL_TYPE> actionGoal;
+        private final ClientStateMachine stateMachine = new ClientStateMachine(ClientState.WAITING_FOR_GOAL_ACK);
+        private final LatencyMetrics latencyMetrics;
+        private volatile GoalStatus latestGoalStatus = null;
+        // System.nanoTime() of the phases of the goal, 0 until the phase is observed, guarded by this
+        private long sentNanos = 0;
+        private long ackNanos = 0;
+        private long activeNanos = 0;
+        private long terminalNanos = 0;
+        // the sequence number of the last status array that reported the goal
+        private volatile long lastStatusArraySequence = 0;
+
+        /**
+         * @param goalId         the id of the goal, kept separately as the goal message may be reused by the caller
+         * @param actionGoal     the goal message
+         * @param latencyMetrics where the latencies of the phases of the goal are recorded
+         */
+        private ClientGoal(final String goalId, final T_ACTION_GOAL_TYPE actionGoal, final LatencyMetrics latencyMetrics) {
+            this.goalId = goalId;
+            this.actionGoal = new ActionGoal<>(actionGoal);
+            this.latencyMetrics = latencyMetrics;
+        }
+
+        /**
+         * Getter for goalId
+         *
+         * @return goalId
+         **/
+        final String getGoalId() {
+            return this.goalId;
+        }
+
+        /**
+         * Getter for actionGoal
+         *
+         * @return actionGoal
+         **/
+        final ActionGoal<T_ACTION_GOAL_TYPE> getActionGoal() {
+            return this.actionGoal;
+        }
+
+        /**
+         * Getter for stateMachine
+         *
+         * @return stateMachine
+         **/
+        final ClientStateMachine getStateMachine() {
+            return this.stateMachine;
+        }
+
+        /**
+         * Getter for latestGoalStatus
+         *
+         * @return the latest status received for this goal, or null if none has been received
+         **/
+        final GoalStatus getLatestGoalStatus() {
+            return this.latestGoalStatus;
+        }
+
+        /**
+         * @return true if no status has been received for the goal and it has not been cancelled
+         */
+        final boolean isWaitingForAck() {
+            return this.latestGoalStatus == null && this.stateMachine.getState() == ClientState.WAITING_FOR_GOAL_ACK;
+        }
+
+        /**
+         * Called with the status of this goal, as routed by the {@link ActionClient} from a status, feedback or result message.
+         *
+         * @param goalStatus
+         */
+        final void statusReceived(final GoalStatus goalStatus) {
+            this.latestGoalStatus = goalStatus;
+            this.statusReceived(goalStatus.getStatus());
+        }
+
+        /**
+         * @param status
+         */
+        private final void statusReceived(final int status) {
+            this.stateMachine.transition(status);
+            final long nowNanos = System.nanoTime();
+            final ClientState state = this.stateMachine.getState();
+            synchronized (this) {
+                if (this.ackNanos == 0) {
+                    this.ackNanos = nowNanos;
+                    this.latencyMetrics.record(GoalLatencyPhase.PUBLISH_TO_ACK, this.sentNanos, nowNanos);
+                }
+                if (this.activeNanos == 0 && state == ClientState.ACTIVE) {
+                    this.activeNanos = nowNanos;
+                    this.latencyMetrics.record(GoalLatencyPhase.ACK_TO_ACTIVE, this.ackNanos, nowNanos);
+                }
+                if (this.terminalNanos == 0 && (state == ClientState.WAITING_FOR_RESULT || state == ClientState.DONE)) {
+                    this.terminalNanos = nowNanos;
+                    this.latencyMetrics.record(GoalLatencyPhase.ACTIVE_TO_TERMINAL, this.activeNanos, nowNanos);
+                }
+            }
+        }
+
+        /**
+         * @return the {@link System#nanoTime()} when the goal was published, 0 if it has not been published yet
+         */
+        final long getSentNanos() {
+            synchronized (this) {
+                return this.sentNanos;
+            }
+        }
+
+        /**
+         * Called when the goal is published.
+         */
+        final void goalSent() {
+            final long nowNanos = System.nanoTime();
+            synchronized (this) {
+                this.sentNanos = nowNanos;
+            }
+        }
+
+        /**
+         * Called when the result of the goal is received.
+         */
+        private final void resultReceived() {
+            this.stateMachine.resultReceived();
+            final long nowNanos = System.nanoTime();
+            synchronized (this) {
+                this.latencyMetrics.record(GoalLatencyPhase.TERMINAL_TO_RESULT, this.terminalNanos, nowNanos);
+                this.latencyMetrics.record(GoalLatencyPhase.PUBLISH_TO_RESULT, this.sentNanos, nowNanos);
+            }
+        }
     }
 
+    private final ConcurrentHashMap<String, ClientGoal<T_ACTION_GOAL>> goalIdToClientGoalMap = new ConcurrentHashMap<>();
+    private volatile ClientGoal<T_ACTION_GOAL> latestGoal = null;
+    // the number of status arrays received, written only by the thread that receives the status arrays
+    private volatile long statusArraySequence = 0;
+    private final LatencyMetrics latencyMetrics = new LatencyMetrics();
+
     /**
-     * Getter for actionGoal
      *
-     * @return actionGoal
-     **/
-    final ActionGoal<T_ACTION_GOAL> getActionGoal() {
-        return this.actionGoal;
+     */
+    ClientGoalManager() {
+    }
+
+    /**
+     * Start tracking a new goal. A goal that was previously tracked with the same id is replaced.
+     *
+     * @param goalId     the id of the goal
+     * @param actionGoal the goal message
+     *
+     * @return the {@link ClientGoal} tracking the goal
+     */
+    final ClientGoal<T_ACTION_GOAL> addGoal(final String goalId, final T_ACTION_GOAL actionGoal) {
+        Objects.requireNonNull(goalId);
+        final ClientGoal<T_ACTION_GOAL> clientGoal = new ClientGoal<>(goalId, actionGoal, this.latencyMetrics);
+        // the missed status arrays are counted from the creation of the goal
+        clientGoal.lastStatusArraySequence = this.statusArraySequence;
+        this.goalIdToClientGoalMap.put(goalId, clientGoal);
+        this.latestGoal = clientGoal;
+        return clientGoal;
     }
 
     /**
-     * @param actionGoal
+     * @param goalId
+     *
+     * @return the tracked goal with the given id, or null if no such goal is tracked
      */
-    ClientGoalManager(final ActionGoal<T_ACTION_GOAL> actionGoal) {
-        Objects.requireNonNull(actionGoal);
-        this.actionGoal = actionGoal;
-        this.stateMachine = new ClientStateMachine(ClientState.NO_GOAL);
+    final ClientGoal<T_ACTION_GOAL> getGoal(final String goalId) {
+        return goalId == null ? null : this.goalIdToClientGoalMap.get(goalId);
     }
 
     /**
-     * @param actionGoal
+     * @return the most recently added goal, or null if no goal has been sent. The goal is returned even if it is no longer tracked.
      */
-    final void setGoal(final ActionGoal<T_ACTION_GOAL> actionGoal) {
-        this.actionGoal = actionGoal;
-        if (this.stateMachine.isRunning()) {
-            this.stateMachine.setState(ClientState.NO_GOAL);
-        }
-        this.stateMachine.resetToState(ClientState.WAITING_FOR_GOAL_ACK);
+    final ClientGoal<T_ACTION_GOAL> getLatestGoal() {
+        return this.latestGoal;
+    }
+
+    /**
+     * @param goalId
+     *
+     * @return the removed goal or null if no goal with this id was tracked
+     */
+    final ClientGoal<T_ACTION_GOAL> removeGoal(final String goalId) {
+        return goalId == null ? null : this.goalIdToClientGoalMap.remove(goalId);
+    }
+
+    /**
+     * @param goalId
+     *
+     * @return true if the goal can be cancelled, false otherwise or if the goal is not tracked
+     */
+    final boolean cancelGoal(final String goalId) {
+        final ClientGoal<T_ACTION_GOAL> clientGoal = this.getGoal(goalId);
+        return clientGoal != null && clientGoal.stateMachine.cancel();
     }
 
     /**
-     * @param actionGoal
+     * Cancel every tracked goal.
      */
-    final void setGoal(final T_ACTION_GOAL actionGoal) {
-        final ActionGoal<T_ACTION_GOAL> actionGoalWrapper = new ActionGoal();
-        actionGoalWrapper.setActionGoalMessage(actionGoal);
-        this.setGoal(actionGoalWrapper);
+    final void cancelAllGoals() {
+        for (final ClientGoal<T_ACTION_GOAL> clientGoal : this.goalIdToClientGoalMap.values()) {
+            clientGoal.stateMachine.cancel();
+        }
     }
 
     /**
-     * @return
+     * Recall a goal that has not been sent to the server, as the server would for a goal cancelled before it is processed.
+     * The goal stops being tracked.
+     *
+     * @param goalId
+     *
+     * @return true if the goal was tracked
      */
-    final boolean cancelGoal() {
-        return this.stateMachine.cancel();
+    final boolean recallGoal(final String goalId) {
+        final ClientGoal<T_ACTION_GOAL> clientGoal = this.removeGoal(goalId);
+        if (clientGoal != null) {
+            clientGoal.stateMachine.cancel();
+            clientGoal.stateMachine.transition(GoalStatus.RECALLED);
+            clientGoal.stateMachine.resultReceived();
+        }
+        return clientGoal != null;
     }
 
     /**
-     * Signal that the result has been received.
+     * Signal that the result has been received. The goal stops being tracked.
+     *
+     * @param goalId
+     *
+     * @return true if the goal was tracked
      */
-    final void resultReceived() {
-        this.stateMachine.resultReceived();
+    final boolean resultReceived(final String goalId) {
+        final ClientGoal<T_ACTION_GOAL> clientGoal = this.removeGoal(goalId);
+        if (clientGoal != null) {
+            clientGoal.resultReceived();
+        }
+        return clientGoal != null;
     }
 
     /**
+     * @param goalId
      * @param status
+     *
+     * @return true if the goal was tracked
      */
-    final void updateStatus(int status) {
-        this.stateMachine.transition(status);
+    final boolean updateStatus(final String goalId, final int status) {
+        final ClientGoal<T_ACTION_GOAL> clientGoal = this.getGoal(goalId);
+        if (clientGoal != null) {
+            clientGoal.statusReceived(status);
+        }
+        return clientGoal != null;
     }
 
+    /**
+     * Route the status to the tracked goal it refers to.
+     *
+     * @param goalStatus
+     *
+     * @return true if the goal was tracked
+     */
+    final boolean updateStatus(final GoalStatus goalStatus) {
+        final ClientGoal<T_ACTION_GOAL> clientGoal = this.getGoal(goalStatus.getGoalId().getId());
+        if (clientGoal != null) {
+            clientGoal.statusReceived(goalStatus);
+        }
+        return clientGoal != null;
+    }
+
+    /**
+     * Update the goals with a status array of the server.
+     * A goal is lost when it is missing from maxMissedStatusArrays consecutive status arrays while the server should report it,
+     * that is while it is pending, active or being cancelled.
+     * The status arrays must be received on a single thread.
+     *
+     * @param statusList            the statuses of the status array
+     * @param maxMissedStatusArrays zero or negative to never lose a goal
+     *
+     * @return the goals that are lost, they are no longer tracked
+     */
+    final List<ClientGoal<T_ACTION_GOAL>> statusArrayReceived(final List<GoalStatus> statusList, final int maxMissedStatusArrays) {
+        final long sequence = this.statusArraySequence + 1;
+        this.statusArraySequence = sequence;
+        if (statusList != null) {
+            for (final GoalStatus goalStatus : statusList) {
+                final ClientGoal<T_ACTION_GOAL> clientGoal = this.getGoal(goalStatus.getGoalId().getId());
+                if (clientGoal != null) {
+                    clientGoal.statusReceived(goalStatus);
+                    clientGoal.lastStatusArraySequence = sequence;
+                } else if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Status update is not for a tracked goal! GoalID:[" + goalStatus.getGoalId().getId() + "]");
+                }
+            }
+        }
+        List<ClientGoal<T_ACTION_GOAL>> lostGoals = Collections.emptyList();
+        if (maxMissedStatusArrays > 0) {
+            for (final ClientGoal<T_ACTION_GOAL> clientGoal : this.goalIdToClientGoalMap.values()) {
+                if (sequence - clientGoal.lastStatusArraySequence >= maxMissedStatusArrays
+                        && REPORTED_STATES.contains(clientGoal.stateMachine.getState())
+                        && this.loseGoal(clientGoal)) {
+                    if (lostGoals.isEmpty()) {
+                        lostGoals = new ArrayList<>();
+                    }
+                    lostGoals.add(clientGoal);
+                }
+            }
+        }
+        return lostGoals;
+    }
 
     /**
-     * @return
+     * Lose the goals that are published and running, when nothing has been heard from the server for longer than the timeout.
+     *
+     * @param lastStatusArrayNanos the {@link System#nanoTime()} of the last status array, 0 if none has been received
+     * @param nowNanos
+     * @param silenceTimeoutNanos
+     *
+     * @return the goals that are lost, they are no longer tracked
+     */
+    final List<ClientGoal<T_ACTION_GOAL>> serverSilent(final long lastStatusArrayNanos, final long nowNanos, final long silenceTimeoutNanos) {
+        List<ClientGoal<T_ACTION_GOAL>> lostGoals = Collections.emptyList();
+        for (final ClientGoal<T_ACTION_GOAL> clientGoal : this.goalIdToClientGoalMap.values()) {
+            final long sentNanos = clientGoal.getSentNanos();
+            if (sentNanos == 0) {
+                continue;
+            }
+            // silence is measured from the last status array, or from the publication of a goal sent after it
+            final long silentSinceNanos = lastStatusArrayNanos != 0 && lastStatusArrayNanos - sentNanos > 0 ? lastStatusArrayNanos : sentNanos;
+            if (nowNanos - silentSinceNanos > silenceTimeoutNanos && this.loseGoal(clientGoal)) {
+                if (lostGoals.isEmpty()) {
+                    lostGoals = new ArrayList<>();
+                }
+                lostGoals.add(clientGoal);
+            }
+        }
+        return lostGoals;
+    }
+
+    /**
+     * @param clientGoal
+     *
+     * @return true if the goal was running, it is now lost and no longer tracked
+     */
+    private final boolean loseGoal(final ClientGoal<T_ACTION_GOAL> clientGoal) {
+        if (clientGoal.stateMachine.lost()) {
+            this.goalIdToClientGoalMap.remove(clientGoal.getGoalId(), clientGoal);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any of the tracked goals is running
+     */
+    final boolean hasRunningGoals() {
+        for (final ClientGoal<T_ACTION_GOAL> clientGoal : this.goalIdToClientGoalMap.values()) {
+            if (clientGoal.stateMachine.isRunning()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of the tracked goals
+     */
+    final int size() {
+        return this.goalIdToClientGoalMap.size();
+    }
+
+    /**
+     * Stop tracking every goal.
+     */
+    final void clear() {
+        this.goalIdToClientGoalMap.clear();
+    }
+
+    /**
+     * @return the state of the most recently added goal or {@link ClientState#NO_GOAL} if no goal has been sent
      */
     final ClientState getGoalState() {
-        return this.stateMachine.getState();
+        final ClientGoal<T_ACTION_GOAL> clientGoal = this.latestGoal;
+        return clientGoal == null ? ClientState.NO_GOAL : clientGoal.stateMachine.getState();
+    }
+
+    /**
+     * Getter for latencyMetrics
+     *
+     * @return the latencies of the goals of this manager
+     **/
+    final LatencyMetrics getLatencyMetrics() {
+        return this.latencyMetrics;
+    }
+
+    @Override
+    public String toString() {
+        return ClientGoalManager.class.getSimpleName() + "[trackedGoals=" + this.goalIdToClientGoalMap.size() + "]";
     }
 }
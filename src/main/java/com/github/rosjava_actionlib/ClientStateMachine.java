@@ -17,15 +17,18 @@
 
 package com.github.rosjava_actionlib;
 
+import actionlib_msgs.GoalStatus;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
  * State machine for the action client.
+ * The transitions are looked up in an immutable table that is precomputed for every (state, goal status) pair,
+ * and the state is updated with a lock free compare and set, so a transition allocates nothing and never blocks.
  *
  * @author Ernesto Corbellini ecorbellini@ekumenlabs.com
  * @author Spyros Koukas
@@ -33,8 +36,24 @@ import java.util.stream.Collectors;
 final class ClientStateMachine {
 
 
-    private ClientState latestGoalStatus = null;
-    private ClientState state = ClientState.UNKNOWN_STATE;
+    /**
+     * Shared empty transition
+     */
+    private static final ClientState[] NO_TRANSITION = new ClientState[0];
+
+    /**
+     * The number of the known goal statuses, {@link GoalStatus#PENDING} to {@link GoalStatus#LOST}
+     */
+    private static final int GOAL_STATUS_COUNT = GoalStatus.LOST + 1;
+
+    /**
+     * The next states indexed by the {@link ClientState#ordinal()} of the current state and the goal status.
+     * The arrays are never modified after the table is created.
+     */
+    private static final ClientState[][][] TRANSITIONS = createTransitionTable();
+
+    private volatile ClientState latestGoalStatus = null;
+    private final AtomicReference<ClientState> state = new AtomicReference<>(ClientState.UNKNOWN_STATE);
     private final Log log = LogFactory.getLog(ActionClient.class);
 
     /**
@@ -52,9 +71,9 @@ final class ClientStateMachine {
      *
      * @param initialState
      */
-    final synchronized void resetToState(final ClientState initialState) {
+    final void resetToState(final ClientState initialState) {
         Objects.requireNonNull(initialState);
-        this.state = initialState;
+        this.state.set(initialState);
         this.latestGoalStatus = null;
     }
 
@@ -62,16 +81,16 @@ final class ClientStateMachine {
     /**
      * @param state
      */
-    final synchronized void setState(final ClientState state) {
+    final void setState(final ClientState state) {
         Objects.requireNonNull(state);
-        if(log.isInfoEnabled()) {
-            log.info("ClientStateMachine - State changed from " + this.state + " to " + state);
+        final ClientState previousState = this.state.getAndSet(state);
+        if (log.isInfoEnabled()) {
+            log.info("ClientStateMachine - State changed from " + previousState + " to " + state);
         }
-        this.state = state;
     }
 
-    final synchronized ClientState getState() {
-        return this.state;
+    final ClientState getState() {
+        return this.state.get();
     }
 
     /**
@@ -79,8 +98,8 @@ final class ClientStateMachine {
      *
      * @param status
      */
-    final synchronized void updateStatus(final ClientState status) {
-        if (this.state != ClientState.DONE) {
+    final void updateStatus(final ClientState status) {
+        if (this.state.get() != ClientState.DONE) {
             this.latestGoalStatus = status;
         }
     }
@@ -90,18 +109,22 @@ final class ClientStateMachine {
      *
      * @param goalStatus Status of the goal.
      */
-    final synchronized void transition(final int goalStatus) {
-
-        // transition to next states
-        final List<ClientState> nextStates = this.getTransition(goalStatus);
+    final void transition(final int goalStatus) {
 
         if (this.log.isTraceEnabled()) {
             this.log.trace("State transition invoked. GoalStatus:" + goalStatus);
         }
 
-        for (final ClientState state : nextStates) {
-            this.state = state;
-        }
+        // transition to the last of the next states
+        ClientState currentState;
+        ClientState[] nextStates;
+        do {
+            currentState = this.state.get();
+            nextStates = getTransition(currentState, goalStatus);
+            if (nextStates.length == 0) {
+                return;
+            }
+        } while (!this.state.compareAndSet(currentState, nextStates[nextStates.length - 1]));
 
     }
 
@@ -117,18 +140,46 @@ final class ClientStateMachine {
      * to the final goal state.
      */
     final List<ClientState> getTransitionInteger(int goalStatus) {
-        return this.getTransition(goalStatus).stream().collect(Collectors.toList());
+        return new ArrayList<>(Arrays.asList(getTransition(this.state.get(), goalStatus)));
+    }
+
+    /**
+     * @param state
+     * @param goalStatus
+     *
+     * @return the precomputed next states, the returned array must not be modified
+     */
+    private static final ClientState[] getTransition(final ClientState state, final int goalStatus) {
+        return (goalStatus >= 0 && goalStatus < GOAL_STATUS_COUNT) ? TRANSITIONS[state.ordinal()][goalStatus] : NO_TRANSITION;
+    }
+
+    /**
+     * @return the transition table for every (state, goal status) pair
+     */
+    private static final ClientState[][][] createTransitionTable() {
+        final ClientState[] clientStates = ClientState.values();
+        final ClientState[][][] transitions = new ClientState[clientStates.length][GOAL_STATUS_COUNT][];
+        for (final ClientState clientState : clientStates) {
+            for (int goalStatus = 0; goalStatus < GOAL_STATUS_COUNT; goalStatus++) {
+                final List<ClientState> stateList = computeTransition(clientState, goalStatus);
+                transitions[clientState.ordinal()][goalStatus] = stateList.isEmpty() ? NO_TRANSITION : stateList.toArray(new ClientState[0]);
+            }
+        }
+        return transitions;
     }
 
     /**
+     * Used only to create the transition table.
+     *
+     * @param state
      * @param goalStatus
      *
      * @return
      */
-    private final List<ClientState> getTransition(int goalStatus) {
+    private static final List<ClientState> computeTransition(final ClientState state, final int goalStatus) {
         final List<ClientState> stateList = new ArrayList<>();
 
-        switch (this.state) {
+        switch (state) {
             case WAITING_FOR_GOAL_ACK:
                 switch (goalStatus) {
                     case actionlib_msgs.GoalStatus.PENDING:
@@ -412,18 +463,33 @@ final class ClientStateMachine {
      * @return True if the goal can be cancelled, false otherwise.
      */
     final boolean cancel() {
-        final ArrayList<ClientState> cancellableStates =
-                new ArrayList<>(
-                        Arrays.asList(ClientState.WAITING_FOR_GOAL_ACK
-                                , ClientState.PENDING,
-                                ClientState.ACTIVE)
-                );
-        final boolean shouldCancel = cancellableStates.contains(state);
-
-        if (shouldCancel) {
-            this.state = ClientState.WAITING_FOR_CANCEL_ACK;
-        }
-        return shouldCancel;
+        ClientState currentState;
+        do {
+            currentState = this.state.get();
+            final boolean shouldCancel = currentState == ClientState.WAITING_FOR_GOAL_ACK
+                    || currentState == ClientState.PENDING
+                    || currentState == ClientState.ACTIVE;
+            if (!shouldCancel) {
+                return false;
+            }
+        } while (!this.state.compareAndSet(currentState, ClientState.WAITING_FOR_CANCEL_ACK));
+        return true;
+    }
+
+    /**
+     * Mark the goal as lost, because the server no longer reports it.
+     *
+     * @return true if the goal was running and its state is now {@link ClientState#LOST}
+     */
+    final boolean lost() {
+        ClientState currentState;
+        do {
+            currentState = this.state.get();
+            if (!currentState.isRunning()) {
+                return false;
+            }
+        } while (!this.state.compareAndSet(currentState, ClientState.LOST));
+        return true;
     }
 
     /**
@@ -436,11 +502,7 @@ final class ClientStateMachine {
      * then its next state will be a {@link ClientState#NO_GOAL} state.
      */
     final void resultReceived() {
-        if (this.state == ClientState.WAITING_FOR_RESULT) {
-            this.state = ClientState.DONE;
-        } else {
-            this.state = ClientState.NO_GOAL;
-        }
+        this.state.getAndUpdate(currentState -> currentState == ClientState.WAITING_FOR_RESULT ? ClientState.DONE : ClientState.NO_GOAL);
     }
 
 
@@ -448,7 +510,7 @@ final class ClientStateMachine {
      * @return the
      */
     final boolean isRunning() {
-        return this.state.isRunning();
+        return this.state.get().isRunning();
     }
 
     /**
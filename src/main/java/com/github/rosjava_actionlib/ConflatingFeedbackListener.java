@@ -0,0 +1,150 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.internal.message.Message;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps an {@link ActionClientFeedbackListener} so that it only receives the newest feedback of each goal.
+ * The feedback is kept in one slot per goal id and handed to the listener on an {@link Executor} when the listener is ready,
+ * so a slow listener never backs up the subscriber and never processes stale feedback.
+ *
+ * @param <T_ACTION_FEEDBACK>
+ *
+ * @author Spyros Koukas
+ * @see ActionClient#addConflatingFeedbackListener(ActionClientFeedbackListener, Executor)
+ * @see ActionFuture#addFeedbackListener(ActionClientFeedbackListener, Executor)
+ */
+public final class ConflatingFeedbackListener<T_ACTION_FEEDBACK extends Message> implements ActionClientFeedbackListener<T_ACTION_FEEDBACK> {
+    private static final Log LOGGER = LogFactory.getLog(ConflatingFeedbackListener.class);
+
+    private final ActionClientFeedbackListener<T_ACTION_FEEDBACK> delegate;
+    private final Executor executor;
+    private final ConcurrentHashMap<String, T_ACTION_FEEDBACK> goalIdToLatestFeedbackMap = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+    private final AtomicLong conflatedCount = new AtomicLong(0);
+    private final AtomicLong deliveredCount = new AtomicLong(0);
+
+    /**
+     * @param delegate the listener to invoke with the newest feedback
+     * @param executor the executor on which the delegate will run
+     */
+    public ConflatingFeedbackListener(final ActionClientFeedbackListener<T_ACTION_FEEDBACK> delegate, final Executor executor) {
+        Objects.requireNonNull(delegate);
+        Objects.requireNonNull(executor);
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public final void feedbackReceived(final T_ACTION_FEEDBACK feedback) {
+        if (feedback != null) {
+            final String goalId = new ActionFeedback<>(feedback).getGoalStatusMessage().getGoalId().getId();
+            if (this.goalIdToLatestFeedbackMap.put(goalId, feedback) != null) {
+                this.conflatedCount.incrementAndGet();
+            }
+            this.scheduleDrain();
+        }
+    }
+
+    /**
+     * Submit the drain task unless it is already submitted.
+     */
+    private final void scheduleDrain() {
+        if (!this.goalIdToLatestFeedbackMap.isEmpty() && this.drainScheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this.drainTask);
+            } catch (final RejectedExecutionException ree) {
+                this.drainScheduled.set(false);
+                if (LOGGER.isErrorEnabled()) {
+                    LOGGER.error(ExceptionUtils.getStackTrace(ree));
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver the newest feedback of every goal that has pending feedback.
+     */
+    private final void drain() {
+        try {
+            final Iterator<Map.Entry<String, T_ACTION_FEEDBACK>> iterator = this.goalIdToLatestFeedbackMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final String goalId = iterator.next().getKey();
+                // take the newest value, a feedback that arrives after this is delivered by the next drain
+                final T_ACTION_FEEDBACK feedback = this.goalIdToLatestFeedbackMap.remove(goalId);
+                if (feedback != null) {
+                    try {
+                        this.delegate.feedbackReceived(feedback);
+                    } catch (final RuntimeException e) {
+                        if (LOGGER.isErrorEnabled()) {
+                            LOGGER.error(ExceptionUtils.getStackTrace(e));
+                        }
+                    }
+                    this.deliveredCount.incrementAndGet();
+                }
+            }
+        } finally {
+            this.drainScheduled.set(false);
+            this.scheduleDrain();
+        }
+    }
+
+    /**
+     * Getter for delegate
+     *
+     * @return delegate
+     **/
+    public final ActionClientFeedbackListener<T_ACTION_FEEDBACK> getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * @return the number of feedback messages that were replaced by a newer one before being delivered
+     */
+    public final long getConflatedCount() {
+        return this.conflatedCount.get();
+    }
+
+    /**
+     * @return the number of feedback messages delivered to the delegate
+     */
+    public final long getDeliveredCount() {
+        return this.deliveredCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return ConflatingFeedbackListener.class.getSimpleName() + "[delegate=" + this.delegate
+                + ", pending=" + this.goalIdToLatestFeedbackMap.size()
+                + ", conflated=" + this.conflatedCount.get()
+                + ", delivered=" + this.deliveredCount.get() + "]";
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+/**
+ * The phases of the life of a goal for which the {@link ActionClient} records latencies.
+ *
+ * @author Spyros Koukas
+ * @see ActionClient#getLatencySnapshot(GoalLatencyPhase)
+ */
+public enum GoalLatencyPhase {
+    /**
+     * From publishing the goal to the first status of the goal from the server
+     */
+    PUBLISH_TO_ACK,
+    /**
+     * From the first status of the goal to the goal becoming active
+     */
+    ACK_TO_ACTIVE,
+    /**
+     * From the goal becoming active to its terminal status
+     */
+    ACTIVE_TO_TERMINAL,
+    /**
+     * From the terminal status of the goal to its result message
+     */
+    TERMINAL_TO_RESULT,
+    /**
+     * From publishing the goal to its result message
+     */
+    PUBLISH_TO_RESULT
+}
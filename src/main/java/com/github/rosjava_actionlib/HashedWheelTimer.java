@@ -0,0 +1,250 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A timer for a large number of timeouts that rarely expire, such as goal deadlines.
+ * Timeouts are hashed in the buckets of a wheel that is advanced by a single thread once per tick,
+ * so scheduling and cancelling a timeout costs O(1) and thousands of timeouts cost a single thread.
+ * Timeouts expire up to one tick late. The thread is started with the first timeout.
+ *
+ * @author Spyros Koukas
+ */
+final class HashedWheelTimer {
+    private static final Log LOGGER = LogFactory.getLog(HashedWheelTimer.class);
+
+    /**
+     * A scheduled task
+     */
+    static final class Timeout {
+        private final long deadlineNanos;
+        private final Runnable task;
+        private volatile boolean cancelled = false;
+        private volatile boolean expired = false;
+        // accessed only by the worker thread
+        private long remainingRounds = 0;
+
+        /**
+         * @param deadlineNanos as returned by {@link System#nanoTime()}
+         * @param task
+         */
+        private Timeout(final long deadlineNanos, final Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+
+        /**
+         * The task will not run if it has not run yet.
+         *
+         * @return true if the task had not run yet
+         */
+        final boolean cancel() {
+            this.cancelled = true;
+            return !this.expired;
+        }
+
+        /**
+         * @return true if the timeout has been cancelled
+         */
+        final boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * @return true if the task has run
+         */
+        final boolean isExpired() {
+            return this.expired;
+        }
+    }
+
+    private enum WorkerState {INIT, STARTED, STOPPED}
+
+    private final long tickNanos;
+    private final int mask;
+    // accessed only by the worker thread
+    private final ArrayDeque<Timeout>[] wheel;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread workerThread;
+    private volatile WorkerState workerState = WorkerState.INIT;
+    private volatile long startNanos = 0;
+
+    /**
+     * @param name      the name of the worker thread
+     * @param tick      the duration of a tick
+     * @param tickUnit
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    HashedWheelTimer(final String name, final long tick, final TimeUnit tickUnit, final int wheelSize) {
+        Objects.requireNonNull(tickUnit);
+        if (tick <= 0) {
+            throw new IllegalArgumentException("tick:" + tick + " should be positive");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize:" + wheelSize + " should be positive and at most 2^30");
+        }
+        this.tickNanos = tickUnit.toNanos(tick);
+        int normalizedWheelSize = 1;
+        while (normalizedWheelSize < wheelSize) {
+            normalizedWheelSize <<= 1;
+        }
+        this.mask = normalizedWheelSize - 1;
+        this.wheel = new ArrayDeque[normalizedWheelSize];
+        for (int i = 0; i < normalizedWheelSize; i++) {
+            this.wheel[i] = new ArrayDeque<>();
+        }
+        this.workerThread = new Thread(this::run, name);
+        this.workerThread.setDaemon(true);
+    }
+
+    /**
+     * @param task     the task to run on the timer thread, it should be short
+     * @param delay
+     * @param delayUnit
+     *
+     * @return the timeout that can be used to cancel the task
+     */
+    final Timeout schedule(final Runnable task, final long delay, final TimeUnit delayUnit) {
+        Objects.requireNonNull(task);
+        Objects.requireNonNull(delayUnit);
+        this.start();
+        final Timeout timeout = new Timeout(System.nanoTime() + delayUnit.toNanos(Math.max(delay, 0)), task);
+        this.newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Start the worker thread if it is not already started.
+     *
+     * @throws IllegalStateException if the timer is stopped
+     */
+    private final void start() {
+        if (this.workerState != WorkerState.STARTED) {
+            synchronized (this) {
+                if (this.workerState == WorkerState.INIT) {
+                    this.startNanos = System.nanoTime();
+                    this.workerState = WorkerState.STARTED;
+                    this.workerThread.start();
+                } else if (this.workerState == WorkerState.STOPPED) {
+                    throw new IllegalStateException("Timer " + this.workerThread.getName() + " is stopped");
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the worker thread, the pending timeouts will not run.
+     */
+    final void stop() {
+        synchronized (this) {
+            final boolean started = this.workerState == WorkerState.STARTED;
+            this.workerState = WorkerState.STOPPED;
+            if (started) {
+                LockSupport.unpark(this.workerThread);
+            }
+        }
+    }
+
+    /**
+     * The worker loop
+     */
+    private final void run() {
+        long tick = 0;
+        while (this.workerState == WorkerState.STARTED) {
+            final long tickDeadlineNanos = this.startNanos + (tick + 1) * this.tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = tickDeadlineNanos - System.nanoTime()) > 0 && this.workerState == WorkerState.STARTED) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+            if (this.workerState != WorkerState.STARTED) {
+                break;
+            }
+            this.transferNewTimeouts(tick);
+            this.expireTimeouts(this.wheel[(int) (tick & this.mask)], tickDeadlineNanos);
+            tick++;
+        }
+        this.newTimeouts.clear();
+        for (final ArrayDeque<Timeout> bucket : this.wheel) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * @param currentTick
+     */
+    private final void transferNewTimeouts(final long currentTick) {
+        Timeout timeout;
+        while ((timeout = this.newTimeouts.poll()) != null) {
+            if (!timeout.cancelled) {
+                final long calculatedTick = Math.max(0, (timeout.deadlineNanos - this.startNanos) / this.tickNanos);
+                timeout.remainingRounds = (calculatedTick - currentTick) / this.wheel.length;
+                // a timeout with a deadline in the past expires in the current tick
+                final long bucketTick = Math.max(calculatedTick, currentTick);
+                this.wheel[(int) (bucketTick & this.mask)].add(timeout);
+            }
+        }
+    }
+
+    /**
+     * @param bucket
+     * @param tickDeadlineNanos
+     */
+    private final void expireTimeouts(final ArrayDeque<Timeout> bucket, final long tickDeadlineNanos) {
+        final Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            final Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= tickDeadlineNanos) {
+                iterator.remove();
+                timeout.expired = true;
+                if (!timeout.cancelled) {
+                    try {
+                        timeout.task.run();
+                    } catch (final RuntimeException e) {
+                        if (LOGGER.isErrorEnabled()) {
+                            LOGGER.error(ExceptionUtils.getStackTrace(e));
+                        }
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return HashedWheelTimer.class.getSimpleName() + "[name=" + this.workerThread.getName()
+                + ", tickNanos=" + this.tickNanos
+                + ", wheelSize=" + this.wheel.length
+                + ", state=" + this.workerState + "]";
+    }
+}
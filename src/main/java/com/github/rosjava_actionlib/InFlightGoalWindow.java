@@ -0,0 +1,297 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of goals of a client that are in flight, i.e. sent to the server and without a result yet.
+ * A slot is held by the goal id from the moment the goal is admitted until {@link #release(String)} is called for it.
+ * Goals that are enqueued while the window is full are sent, in order, as soon as slots free up.
+ *
+ * @author Spyros Koukas
+ */
+final class InFlightGoalWindow {
+    /**
+     * Value of the maximum in flight goals for no limit
+     */
+    static final int UNLIMITED = 0;
+
+    /**
+     * A goal waiting for a free slot
+     */
+    private static final class PendingGoal {
+        private final String goalId;
+        private final Runnable send;
+
+        /**
+         * @param goalId
+         * @param send   sends the goal once it is admitted
+         */
+        private PendingGoal(final String goalId, final Runnable send) {
+            this.goalId = goalId;
+            this.send = send;
+        }
+    }
+
+    private final Object monitor = new Object();
+    private final Set<String> inFlightGoalIds = new HashSet<>();
+    private final Queue<PendingGoal> pendingGoals = new ArrayDeque<>();
+    private int maxInFlightGoals = UNLIMITED;
+
+    /**
+     *
+     */
+    InFlightGoalWindow() {
+    }
+
+    /**
+     * @param maxInFlightGoals the maximum number of goals in flight, {@link #UNLIMITED} or negative for no limit
+     */
+    final void setMaxInFlightGoals(final int maxInFlightGoals) {
+        final List<Runnable> admitted;
+        synchronized (this.monitor) {
+            this.maxInFlightGoals = Math.max(maxInFlightGoals, UNLIMITED);
+            admitted = this.admitPendingGoals();
+            this.monitor.notifyAll();
+        }
+        runAll(admitted);
+    }
+
+    /**
+     * @return the maximum number of goals in flight, or {@link #UNLIMITED}
+     */
+    final int getMaxInFlightGoals() {
+        synchronized (this.monitor) {
+            return this.maxInFlightGoals;
+        }
+    }
+
+    /**
+     * @param goalId
+     *
+     * @return true if a slot was available and is now held by the goal
+     */
+    final boolean tryAcquire(final String goalId) {
+        Objects.requireNonNull(goalId);
+        synchronized (this.monitor) {
+            if (this.pendingGoals.isEmpty() && this.hasFreeSlot()) {
+                this.inFlightGoalIds.add(goalId);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Wait until a slot is available and hold it for the goal.
+     *
+     * @param goalId
+     *
+     * @throws InterruptedException
+     */
+    final void acquire(final String goalId) throws InterruptedException {
+        Objects.requireNonNull(goalId);
+        synchronized (this.monitor) {
+            while (!this.pendingGoals.isEmpty() || !this.hasFreeSlot()) {
+                this.monitor.wait();
+            }
+            this.inFlightGoalIds.add(goalId);
+        }
+    }
+
+    /**
+     * Wait until a slot is available, at most for the timeout, and hold it for the goal.
+     *
+     * @param goalId
+     * @param timeoutNanos
+     *
+     * @return true if the slot is now held by the goal, false if the timeout passed first
+     *
+     * @throws InterruptedException
+     */
+    final boolean acquire(final String goalId, final long timeoutNanos) throws InterruptedException {
+        Objects.requireNonNull(goalId);
+        final long deadlineNanos = System.nanoTime() + timeoutNanos;
+        synchronized (this.monitor) {
+            while (!this.pendingGoals.isEmpty() || !this.hasFreeSlot()) {
+                final long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this.monitor, remainingNanos);
+            }
+            this.inFlightGoalIds.add(goalId);
+            return true;
+        }
+    }
+
+    /**
+     * Run the send of the goal now if a slot is available, otherwise run it on the thread that frees a slot.
+     *
+     * @param goalId
+     * @param send   sends the goal
+     */
+    final void acquireOrEnqueue(final String goalId, final Runnable send) {
+        Objects.requireNonNull(goalId);
+        Objects.requireNonNull(send);
+        synchronized (this.monitor) {
+            if (!this.pendingGoals.isEmpty() || !this.hasFreeSlot()) {
+                this.pendingGoals.add(new PendingGoal(goalId, send));
+                return;
+            }
+            this.inFlightGoalIds.add(goalId);
+        }
+        send.run();
+    }
+
+    /**
+     * Free the slot held by the goal, if any, and send the pending goals that fit in the window.
+     *
+     * @param goalId
+     *
+     * @return true if the goal was holding a slot
+     */
+    final boolean release(final String goalId) {
+        final List<Runnable> admitted;
+        synchronized (this.monitor) {
+            if (goalId == null || !this.inFlightGoalIds.remove(goalId)) {
+                return false;
+            }
+            admitted = this.admitPendingGoals();
+            this.monitor.notifyAll();
+        }
+        runAll(admitted);
+        return true;
+    }
+
+    /**
+     * Drop the goal from the pending goals without sending it.
+     *
+     * @param goalId
+     *
+     * @return true if the goal was waiting for a slot
+     */
+    final boolean removePending(final String goalId) {
+        synchronized (this.monitor) {
+            return goalId != null && this.pendingGoals.removeIf(pendingGoal -> pendingGoal.goalId.equals(goalId));
+        }
+    }
+
+    /**
+     * Drop every pending goal without sending it.
+     *
+     * @return the ids of the goals that were waiting for a slot
+     */
+    final List<String> removeAllPending() {
+        synchronized (this.monitor) {
+            if (this.pendingGoals.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<String> goalIds = new ArrayList<>(this.pendingGoals.size());
+            for (final PendingGoal pendingGoal : this.pendingGoals) {
+                goalIds.add(pendingGoal.goalId);
+            }
+            this.pendingGoals.clear();
+            // blocked acquires wait for the pending goals to be admitted first
+            this.monitor.notifyAll();
+            return goalIds;
+        }
+    }
+
+    /**
+     * Free every slot and drop the pending goals without sending them.
+     */
+    final void clear() {
+        synchronized (this.monitor) {
+            this.inFlightGoalIds.clear();
+            this.pendingGoals.clear();
+            this.monitor.notifyAll();
+        }
+    }
+
+    /**
+     * @return the number of goals holding a slot
+     */
+    final int getInFlightCount() {
+        synchronized (this.monitor) {
+            return this.inFlightGoalIds.size();
+        }
+    }
+
+    /**
+     * @return the number of goals waiting for a slot
+     */
+    final int getPendingCount() {
+        synchronized (this.monitor) {
+            return this.pendingGoals.size();
+        }
+    }
+
+    /**
+     * Must be called holding the monitor.
+     *
+     * @return
+     */
+    private final boolean hasFreeSlot() {
+        return this.maxInFlightGoals == UNLIMITED || this.inFlightGoalIds.size() < this.maxInFlightGoals;
+    }
+
+    /**
+     * Must be called holding the monitor.
+     *
+     * @return the sends of the pending goals that got a slot, to be run after the monitor is released
+     */
+    private final List<Runnable> admitPendingGoals() {
+        List<Runnable> admitted = Collections.emptyList();
+        while (!this.pendingGoals.isEmpty() && this.hasFreeSlot()) {
+            final PendingGoal pendingGoal = this.pendingGoals.poll();
+            this.inFlightGoalIds.add(pendingGoal.goalId);
+            if (admitted.isEmpty()) {
+                admitted = new ArrayList<>();
+            }
+            admitted.add(pendingGoal.send);
+        }
+        return admitted;
+    }
+
+    /**
+     * @param sends
+     */
+    private static final void runAll(final List<Runnable> sends) {
+        for (final Runnable send : sends) {
+            send.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (this.monitor) {
+            return InFlightGoalWindow.class.getSimpleName() + "[inFlight=" + this.inFlightGoalIds.size()
+                    + ", pending=" + this.pendingGoals.size()
+                    + ", max=" + this.maxInFlightGoals + "]";
+        }
+    }
+}
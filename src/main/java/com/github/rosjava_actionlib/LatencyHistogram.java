@@ -0,0 +1,194 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies in nanoseconds with log-linear buckets, in the style of HdrHistogram.
+ * Every power of two range is split in {@link #SUB_BUCKET_COUNT} linear sub buckets,
+ * so any recorded value is reported with a relative error below 1 / {@link #SUB_BUCKET_COUNT}.
+ * Recording is wait free and never allocates, a consistent copy for reporting is taken with {@link #snapshot()}.
+ *
+ * @author Spyros Koukas
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    /**
+     * The number of linear sub buckets for each power of two
+     */
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = Long.SIZE - 1 - SUB_BUCKET_BITS + 1;
+    private static final int INDEX_COUNT = BUCKET_COUNT * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(INDEX_COUNT);
+    private final AtomicLong totalCount = new AtomicLong(0);
+    private final AtomicLong totalNanos = new AtomicLong(0);
+    private final AtomicLong maxNanos = new AtomicLong(0);
+
+    /**
+     * A copy of the histogram at a point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        /**
+         * @param counts
+         * @param totalCount
+         * @param totalNanos
+         * @param maxNanos
+         */
+        private Snapshot(final long[] counts, final long totalCount, final long totalNanos, final long maxNanos) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * @return the number of recorded values
+         */
+        public final long getCount() {
+            return this.totalCount;
+        }
+
+        /**
+         * @return the maximum recorded value in nanoseconds
+         */
+        public final long getMaxNanos() {
+            return this.maxNanos;
+        }
+
+        /**
+         * @return the mean of the recorded values in nanoseconds, or 0 if nothing is recorded
+         */
+        public final double getMeanNanos() {
+            return this.totalCount == 0 ? 0 : (double) this.totalNanos / this.totalCount;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         *
+         * @return the value in nanoseconds below which the given percentile of the recorded values fall, or 0 if nothing is recorded
+         */
+        public final long getValueAtPercentileNanos(final double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile:" + percentile + " should be between 0 and 100");
+            }
+            long countAtPercentile = (long) Math.ceil(percentile / 100 * this.totalCount);
+            countAtPercentile = Math.max(countAtPercentile, 1);
+            long runningCount = 0;
+            for (int index = 0; index < this.counts.length; index++) {
+                runningCount += this.counts[index];
+                if (runningCount >= countAtPercentile) {
+                    return Math.min(highestEquivalentValue(index), this.maxNanos);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @param timeUnit
+         *
+         * @return the value at the percentile converted to the given unit
+         */
+        public final long getValueAtPercentile(final double percentile, final TimeUnit timeUnit) {
+            return timeUnit.convert(this.getValueAtPercentileNanos(percentile), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return Snapshot.class.getSimpleName() + "[count=" + this.totalCount
+                    + ", meanNanos=" + this.getMeanNanos()
+                    + ", p50Nanos=" + this.getValueAtPercentileNanos(50)
+                    + ", p99Nanos=" + this.getValueAtPercentileNanos(99)
+                    + ", maxNanos=" + this.maxNanos + "]";
+        }
+    }
+
+    /**
+     *
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * @param nanos the latency to record, negative values are recorded as 0
+     */
+    public final void recordNanos(final long nanos) {
+        final long value = Math.max(nanos, 0);
+        this.counts.incrementAndGet(indexOf(value));
+        this.totalCount.incrementAndGet();
+        this.totalNanos.addAndGet(value);
+        if (value > this.maxNanos.get()) {
+            this.maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * @return a copy of the histogram
+     */
+    public final Snapshot snapshot() {
+        final long[] countsCopy = new long[INDEX_COUNT];
+        long copiedCount = 0;
+        for (int index = 0; index < INDEX_COUNT; index++) {
+            countsCopy[index] = this.counts.get(index);
+            copiedCount += countsCopy[index];
+        }
+        // the bucket counts are the reference, the totals may be ahead of them while values are being recorded
+        return new Snapshot(countsCopy, copiedCount, this.totalNanos.get(), this.maxNanos.get());
+    }
+
+    /**
+     * @param value non negative
+     *
+     * @return the index of the bucket of the value
+     */
+    static final int indexOf(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @param index
+     *
+     * @return the highest value that is recorded in the bucket with the given index
+     */
+    static final long highestEquivalentValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        final long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((subBucket + SUB_BUCKET_COUNT) << shift) + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return LatencyHistogram.class.getSimpleName() + "[count=" + this.totalCount.get() + ", maxNanos=" + this.maxNanos.get() + "]";
+    }
+}
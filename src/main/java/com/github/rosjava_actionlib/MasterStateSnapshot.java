@@ -0,0 +1,139 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.master.client.MasterStateClient;
+import org.ros.master.client.SystemState;
+import org.ros.master.client.TopicSystemState;
+import org.ros.node.Node;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rate limited snapshot of the ROS master system state, shared by all the clients of a {@link Node}.
+ * The system state is an XML-RPC round trip to the master, so it is refreshed at most once per
+ * {@link #MIN_REFRESH_PERIOD_MILLIS} no matter how many clients query it.
+ *
+ * @author Spyros Koukas
+ */
+final class MasterStateSnapshot {
+    private static final Log LOGGER = LogFactory.getLog(MasterStateSnapshot.class);
+
+    /**
+     * The minimum time between two queries to the master.
+     */
+    static final long MIN_REFRESH_PERIOD_MILLIS = 500;
+
+    /**
+     * One snapshot per node, keyed by the node name and master uri.
+     * The snapshots are weakly referenced, so a snapshot is dropped when none of the clients of the node uses it.
+     */
+    private static final Map<String, WeakReference<MasterStateSnapshot>> NODE_TO_SNAPSHOT_MAP = new HashMap<>();
+
+    private final MasterStateClient masterStateClient;
+    private final long minRefreshPeriodNanos = TimeUnit.MILLISECONDS.toNanos(MIN_REFRESH_PERIOD_MILLIS);
+    private volatile SystemState systemState = null;
+    private volatile long lastRefreshNanos = 0;
+    private volatile boolean refreshed = false;
+
+    /**
+     * @param node
+     */
+    private MasterStateSnapshot(final Node node) {
+        this.masterStateClient = new MasterStateClient(node, node.getMasterUri());
+    }
+
+    /**
+     * @param node
+     *
+     * @return the snapshot shared by all the users of the node
+     */
+    static final MasterStateSnapshot forNode(final Node node) {
+        Objects.requireNonNull(node);
+        final String key = node.getName() + "@" + node.getMasterUri();
+        synchronized (NODE_TO_SNAPSHOT_MAP) {
+            final WeakReference<MasterStateSnapshot> reference = NODE_TO_SNAPSHOT_MAP.get(key);
+            MasterStateSnapshot snapshot = reference == null ? null : reference.get();
+            if (snapshot == null) {
+                //Drop the entries of collected snapshots
+                final Iterator<WeakReference<MasterStateSnapshot>> iterator = NODE_TO_SNAPSHOT_MAP.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().get() == null) {
+                        iterator.remove();
+                    }
+                }
+                snapshot = new MasterStateSnapshot(node);
+                NODE_TO_SNAPSHOT_MAP.put(key, new WeakReference<>(snapshot));
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return the current system state, refreshing it from the master if it is older than the minimum refresh period.
+     * May be null if the master could not be reached.
+     */
+    private final SystemState getSystemState() {
+        if (!this.refreshed || System.nanoTime() - this.lastRefreshNanos >= this.minRefreshPeriodNanos) {
+            synchronized (this) {
+                //Another thread may have refreshed while we were waiting
+                if (!this.refreshed || System.nanoTime() - this.lastRefreshNanos >= this.minRefreshPeriodNanos) {
+                    try {
+                        this.systemState = this.masterStateClient.getSystemState();
+                    } catch (final Exception e) {
+                        if (LOGGER.isDebugEnabled()) {
+                            LOGGER.debug(ExceptionUtils.getStackTrace(e));
+                        }
+                    }
+                    this.lastRefreshNanos = System.nanoTime();
+                    this.refreshed = true;
+                }
+            }
+        }
+        return this.systemState;
+    }
+
+    /**
+     * @param topicName
+     *
+     * @return true if the topic has at least one publisher according to the snapshot
+     */
+    final boolean isTopicPublished(final String topicName) {
+        boolean result = false;
+        final SystemState currentSystemState = topicName == null ? null : this.getSystemState();
+        if (currentSystemState != null && currentSystemState.getTopics() != null) {
+            for (final TopicSystemState topicSystemState : currentSystemState.getTopics()) {
+                if (topicSystemState != null
+                        && topicName.equals(topicSystemState.getTopicName())
+                        && topicSystemState.getPublishers() != null
+                        && !topicSystemState.getPublishers().isEmpty()) {
+                    result = true;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
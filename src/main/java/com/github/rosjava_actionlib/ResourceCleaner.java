@@ -0,0 +1,80 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import org.ros.message.MessageListener;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * The safety net that releases the resources of the action clients and servers that are not closed before they become unreachable.
+ * The resources are released on a single daemon thread shared by all the clients and servers.
+ * The cleaning action must not reference its owner, otherwise the owner never becomes unreachable.
+ *
+ * @author Spyros Koukas
+ */
+final class ResourceCleaner {
+    private static final Cleaner CLEANER = Cleaner.create(runnable -> {
+        final Thread thread = new Thread(runnable, "rosjava_actionlib-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A message listener that does not keep its owner reachable, the messages received after the owner is collected are dropped.
+     *
+     * @param <T_OWNER>
+     * @param <T_MESSAGE>
+     */
+    static final class WeakMessageListener<T_OWNER, T_MESSAGE> implements MessageListener<T_MESSAGE> {
+        private final WeakReference<T_OWNER> ownerReference;
+        private final BiConsumer<T_OWNER, T_MESSAGE> consumer;
+
+        /**
+         * @param owner
+         * @param consumer called with the owner and the message, it must not capture the owner
+         */
+        WeakMessageListener(final T_OWNER owner, final BiConsumer<T_OWNER, T_MESSAGE> consumer) {
+            this.ownerReference = new WeakReference<>(Objects.requireNonNull(owner));
+            this.consumer = Objects.requireNonNull(consumer);
+        }
+
+        @Override
+        public final void onNewMessage(final T_MESSAGE message) {
+            final T_OWNER owner = this.ownerReference.get();
+            if (owner != null) {
+                this.consumer.accept(owner, message);
+            }
+        }
+    }
+
+    /**
+     * @param owner  the object whose resources are released
+     * @param action releases the resources, runs at most once, either when {@link Cleaner.Cleanable#clean()} is called or after the owner becomes unreachable
+     *
+     * @return the cleanable that runs the action on demand
+     */
+    static final Cleaner.Cleanable register(final Object owner, final Runnable action) {
+        return CLEANER.register(owner, action);
+    }
+
+    private ResourceCleaner() {
+    }
+}
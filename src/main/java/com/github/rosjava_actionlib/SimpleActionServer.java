@@ -0,0 +1,424 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalID;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.internal.message.Message;
+import org.ros.node.ConnectedNode;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An action server that executes every accepted goal with a {@link GoalCallback} on an executor.
+ * The goal becomes active when it is accepted, and the result is published when the callback returns:
+ * the goal is succeeded, preempted if a cancel was requested, or aborted if the callback throws.
+ * Goals are executed concurrently, up to the parallelism of the executor.
+ *
+ * @param <T_ACTION_GOAL>
+ * @param <T_ACTION_FEEDBACK>
+ * @param <T_ACTION_RESULT>
+ *
+ * @author Spyros Koukas
+ */
+public final class SimpleActionServer<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message> implements AutoCloseable {
+    private static final Log LOGGER = LogFactory.getLog(SimpleActionServer.class);
+
+    /**
+     * Executes an accepted goal.
+     *
+     * @param <T_ACTION_GOAL>
+     * @param <T_ACTION_FEEDBACK>
+     * @param <T_ACTION_RESULT>
+     */
+    @FunctionalInterface
+    public interface GoalCallback<T_ACTION_GOAL extends Message, T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message> {
+        /**
+         * Execute the goal and fill in the result of the context.
+         * Long running goals should check {@link GoalContext#isCancelRequested()} and return early when it is true.
+         *
+         * @param goal    the action goal
+         * @param context the result, feedback and cancel request of the goal
+         *
+         * @throws Exception to abort the goal
+         */
+        void execute(T_ACTION_GOAL goal, GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT> context) throws Exception;
+    }
+
+    /**
+     * The executors that a {@link SimpleActionServer} can create and own.
+     */
+    public enum ExecutorType {
+        /**
+         * A fixed number of daemon threads
+         */
+        FIXED_THREAD_POOL,
+        /**
+         * A work stealing pool, see {@link Executors#newWorkStealingPool(int)}
+         */
+        WORK_STEALING_POOL,
+        /**
+         * A virtual thread per goal when the JVM supports virtual threads, otherwise a daemon thread per goal that is reused when idle
+         */
+        VIRTUAL_THREADS;
+
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger(0);
+        private static final ThreadFactory DAEMON_THREAD_FACTORY = runnable -> {
+            final Thread thread = new Thread(runnable, "SimpleActionServer-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        /**
+         * @param parallelism the number of threads, ignored for {@link #VIRTUAL_THREADS}
+         *
+         * @return a new executor of this type
+         */
+        final ExecutorService create(final int parallelism) {
+            if (this != VIRTUAL_THREADS && parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism:" + parallelism + " should be positive");
+            }
+            switch (this) {
+                case FIXED_THREAD_POOL:
+                    return Executors.newFixedThreadPool(parallelism, DAEMON_THREAD_FACTORY);
+                case WORK_STEALING_POOL:
+                    return Executors.newWorkStealingPool(parallelism);
+                case VIRTUAL_THREADS:
+                default:
+                    try {
+                        // looked up reflectively, virtual threads are not available in every supported JVM
+                        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                    } catch (final ReflectiveOperationException reflectiveOperationException) {
+                        if (LOGGER.isDebugEnabled()) {
+                            LOGGER.debug("Virtual threads are not available, using platform threads");
+                        }
+                        return Executors.newCachedThreadPool(DAEMON_THREAD_FACTORY);
+                    }
+            }
+        }
+    }
+
+    /**
+     * The result, feedback and cancel request of a goal that is executed.
+     *
+     * @param <T_ACTION_FEEDBACK>
+     * @param <T_ACTION_RESULT>
+     */
+    public static final class GoalContext<T_ACTION_FEEDBACK extends Message, T_ACTION_RESULT extends Message> {
+        private final ActionServer<?, T_ACTION_FEEDBACK, T_ACTION_RESULT> actionServer;
+        private final String goalId;
+        private final T_ACTION_RESULT result;
+        private volatile boolean cancelRequested = false;
+
+        /**
+         * @param actionServer
+         * @param goalId
+         * @param result
+         */
+        private GoalContext(final ActionServer<?, T_ACTION_FEEDBACK, T_ACTION_RESULT> actionServer, final String goalId, final T_ACTION_RESULT result) {
+            this.actionServer = actionServer;
+            this.goalId = goalId;
+            this.result = result;
+        }
+
+        /**
+         * @return the id of the goal
+         */
+        public final String getGoalId() {
+            return this.goalId;
+        }
+
+        /**
+         * The status of the result is set by the server.
+         *
+         * @return the result message of the goal, published when the {@link GoalCallback} returns
+         */
+        public final T_ACTION_RESULT getResult() {
+            return this.result;
+        }
+
+        /**
+         * @return true if a client requested to cancel the goal
+         */
+        public final boolean isCancelRequested() {
+            return this.cancelRequested;
+        }
+
+        /**
+         * @return a new feedback message
+         */
+        public final T_ACTION_FEEDBACK newFeedbackMessage() {
+            return this.actionServer.newFeedbackMessage();
+        }
+
+        /**
+         * Publish a feedback message for the goal, its status is set by the server.
+         *
+         * @param feedback
+         */
+        public final void publishFeedback(final T_ACTION_FEEDBACK feedback) {
+            Objects.requireNonNull(feedback);
+            this.actionServer.setGoalStatus(new ActionFeedback<>(feedback).getGoalStatusMessage(), this.goalId);
+            this.actionServer.sendFeedback(feedback);
+        }
+    }
+
+    /**
+     * Connects the {@link ActionServer} to the executor
+     */
+    private final class GoalListener implements ActionServerListener<T_ACTION_GOAL> {
+        @Override
+        public final void goalReceived(final T_ACTION_GOAL goal) {
+        }
+
+        @Override
+        public final void cancelReceived(final GoalID id) {
+            SimpleActionServer.this.cancelRequested(id);
+        }
+
+        @Override
+        public final boolean acceptGoal(final T_ACTION_GOAL goal) {
+            return SimpleActionServer.this.register(goal);
+        }
+
+        @Override
+        public final void goalAccepted(final T_ACTION_GOAL goal) {
+            SimpleActionServer.this.submit(goal);
+        }
+    }
+
+    private final ActionServer<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> actionServer;
+    private final GoalCallback<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> goalCallback;
+    private final ExecutorService executorService;
+    private final boolean ownsExecutorService;
+    private final ConcurrentHashMap<String, GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT>> goalIdToContextMap = new ConcurrentHashMap<>();
+    // goals received before the constructor completes are rejected
+    private volatile boolean started = false;
+    private volatile boolean closed = false;
+
+    /**
+     * The goals are executed on the given executor, which is not shut down when the server is closed.
+     *
+     * @param connectedNode      Object representing a node connected to a ROS master.
+     * @param actionName         String that identifies the name of this action.
+     * @param actionGoalType     String holding the type for the action goal message.
+     * @param actionFeedbackType String holding the type for the action feedback message.
+     * @param actionResultType   String holding the type for the action result message.
+     * @param goalCallback       executes the accepted goals
+     * @param executorService    where the goals are executed
+     */
+    public SimpleActionServer(final ConnectedNode connectedNode
+            , final String actionName
+            , final String actionGoalType
+            , final String actionFeedbackType
+            , final String actionResultType
+            , final GoalCallback<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> goalCallback
+            , final ExecutorService executorService) {
+        this(connectedNode, actionName, actionGoalType, actionFeedbackType, actionResultType, goalCallback, executorService, false);
+    }
+
+    /**
+     * The goals are executed on an executor of the given type, which is shut down when the server is closed.
+     *
+     * @param connectedNode      Object representing a node connected to a ROS master.
+     * @param actionName         String that identifies the name of this action.
+     * @param actionGoalType     String holding the type for the action goal message.
+     * @param actionFeedbackType String holding the type for the action feedback message.
+     * @param actionResultType   String holding the type for the action result message.
+     * @param goalCallback       executes the accepted goals
+     * @param executorType       the type of the executor
+     * @param parallelism        the number of goals executed concurrently, ignored for {@link ExecutorType#VIRTUAL_THREADS}
+     */
+    public SimpleActionServer(final ConnectedNode connectedNode
+            , final String actionName
+            , final String actionGoalType
+            , final String actionFeedbackType
+            , final String actionResultType
+            , final GoalCallback<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> goalCallback
+            , final ExecutorType executorType
+            , final int parallelism) {
+        this(connectedNode, actionName, actionGoalType, actionFeedbackType, actionResultType, goalCallback, Objects.requireNonNull(executorType).create(parallelism), true);
+    }
+
+    private SimpleActionServer(final ConnectedNode connectedNode
+            , final String actionName
+            , final String actionGoalType
+            , final String actionFeedbackType
+            , final String actionResultType
+            , final GoalCallback<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> goalCallback
+            , final ExecutorService executorService
+            , final boolean ownsExecutorService) {
+        Objects.requireNonNull(goalCallback);
+        Objects.requireNonNull(executorService);
+        this.goalCallback = goalCallback;
+        this.executorService = executorService;
+        this.ownsExecutorService = ownsExecutorService;
+        this.actionServer = new ActionServer<>(connectedNode, new GoalListener(), actionName, actionGoalType, actionFeedbackType, actionResultType);
+        this.started = true;
+    }
+
+    /**
+     * Called on the subscriber thread when a goal is received.
+     * The context is registered before the goal is accepted, so a cancel that arrives before the goal is submitted is not lost.
+     *
+     * @param goal
+     *
+     * @return true if the goal is accepted
+     */
+    private final boolean register(final T_ACTION_GOAL goal) {
+        if (!this.started || this.closed) {
+            return false;
+        }
+        final String goalId = this.actionServer.getGoalId(goal).getId();
+        this.goalIdToContextMap.putIfAbsent(goalId, new GoalContext<>(this.actionServer, goalId, this.actionServer.newResultMessage()));
+        return true;
+    }
+
+    /**
+     * Called on the subscriber thread when a goal is active.
+     *
+     * @param goal
+     */
+    private final void submit(final T_ACTION_GOAL goal) {
+        final String goalId = this.actionServer.getGoalId(goal).getId();
+        final GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT> context = this.goalIdToContextMap.get(goalId);
+        if (context == null) {
+            return;
+        }
+        try {
+            this.executorService.execute(() -> this.execute(goal, context));
+        } catch (final RejectedExecutionException rejectedExecutionException) {
+            if (LOGGER.isErrorEnabled()) {
+                LOGGER.error("Goal:[" + goalId + "] could not be executed:" + ExceptionUtils.getStackTrace(rejectedExecutionException));
+            }
+            this.complete(context, true);
+        }
+    }
+
+    /**
+     * Called on the executor.
+     *
+     * @param goal
+     * @param context
+     */
+    private final void execute(final T_ACTION_GOAL goal, final GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT> context) {
+        boolean aborted = false;
+        // a goal cancelled while queued is not executed
+        if (!context.cancelRequested) {
+            try {
+                this.goalCallback.execute(goal, context);
+            } catch (final Exception exception) {
+                aborted = true;
+                if (LOGGER.isErrorEnabled()) {
+                    LOGGER.error("Goal:[" + context.goalId + "] aborted:" + ExceptionUtils.getStackTrace(exception));
+                }
+            }
+        }
+        this.complete(context, aborted);
+    }
+
+    /**
+     * Update the state of the goal and publish its result.
+     *
+     * @param context
+     * @param aborted
+     */
+    private final void complete(final GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT> context, final boolean aborted) {
+        try {
+            if (aborted) {
+                this.actionServer.setAbort(context.goalId);
+            } else if (context.cancelRequested) {
+                this.actionServer.setPreempt(context.goalId);
+            } else {
+                this.actionServer.setSucceed(context.goalId);
+            }
+            this.actionServer.setGoalStatus(new ActionResult<>(context.result).getGoalStatusMessage(), context.goalId);
+            this.actionServer.sendResult(context.result);
+        } catch (final RuntimeException runtimeException) {
+            // the topics are shut down when the server is closed
+            if (this.closed) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug(ExceptionUtils.getStackTrace(runtimeException));
+                }
+            } else if (LOGGER.isErrorEnabled()) {
+                LOGGER.error(ExceptionUtils.getStackTrace(runtimeException));
+            }
+        } finally {
+            this.goalIdToContextMap.remove(context.goalId, context);
+        }
+    }
+
+    /**
+     * A blank goal id cancels every goal.
+     *
+     * @param goalId
+     */
+    private final void cancelRequested(final GoalID goalId) {
+        if (goalId == null) {
+            return;
+        }
+        if (StringUtils.isBlank(goalId.getId())) {
+            for (final GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT> context : this.goalIdToContextMap.values()) {
+                context.cancelRequested = true;
+            }
+        } else {
+            final GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT> context = this.goalIdToContextMap.get(goalId.getId());
+            if (context != null) {
+                context.cancelRequested = true;
+            }
+        }
+    }
+
+    /**
+     * @return the number of goals that are executed or waiting for a thread of the executor
+     */
+    public final int getActiveGoals() {
+        return this.goalIdToContextMap.size();
+    }
+
+    /**
+     * @return the underlying action server
+     */
+    public final ActionServer<T_ACTION_GOAL, T_ACTION_FEEDBACK, T_ACTION_RESULT> getActionServer() {
+        return this.actionServer;
+    }
+
+    /**
+     * Stop accepting goals, request the cancellation of the active goals and finish the action server.
+     * An executor created by the server is shut down.
+     */
+    @Override
+    public final void close() {
+        this.closed = true;
+        for (final GoalContext<T_ACTION_FEEDBACK, T_ACTION_RESULT> context : this.goalIdToContextMap.values()) {
+            context.cancelRequested = true;
+        }
+        if (this.ownsExecutorService) {
+            this.executorService.shutdown();
+        }
+        this.actionServer.finish();
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.Subscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shuts down a set of publishers and subscribers concurrently, with one deadline for all of them.
+ *
+ * @author Spyros Koukas
+ */
+final class TopicShutdown {
+    private static final Log LOGGER = LogFactory.getLog(TopicShutdown.class);
+
+    /**
+     * The deadline for shutting down all the topics of an action client or server
+     */
+    static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger(0);
+    /**
+     * Threads are created on demand and expire when idle, shutdowns are rare
+     */
+    private static final ExecutorService SHUTDOWN_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "TopicShutdown-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String owner;
+    private final List<String> topicNames = new ArrayList<>();
+    private final List<Runnable> shutdowns = new ArrayList<>();
+
+    /**
+     * @param owner the name of the action, used in the log messages
+     */
+    TopicShutdown(final String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @param publisher the publisher to shut down, ignored if null
+     *
+     * @return this
+     */
+    final TopicShutdown add(final Publisher<?> publisher) {
+        if (publisher != null) {
+            this.topicNames.add(String.valueOf(publisher.getTopicName()));
+            this.shutdowns.add(() -> publisher.shutdown(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+        return this;
+    }
+
+    /**
+     * The message listeners of the subscriber are removed before the shutdown.
+     *
+     * @param subscriber the subscriber to shut down, ignored if null
+     *
+     * @return this
+     */
+    final TopicShutdown add(final Subscriber<?> subscriber) {
+        if (subscriber != null) {
+            this.topicNames.add(String.valueOf(subscriber.getTopicName()));
+            this.shutdowns.add(() -> {
+                subscriber.removeAllMessageListeners();
+                subscriber.shutdown(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            });
+        }
+        return this;
+    }
+
+    /**
+     * Shut down all the added topics concurrently and wait until they are shut down or the deadline passes.
+     * The topics that failed or did not shut down in time are logged.
+     *
+     * @param timeout  the deadline for all the topics
+     * @param timeUnit
+     *
+     * @return the names of the topics that failed or did not shut down in time
+     */
+    final List<String> shutdown(final long timeout, final TimeUnit timeUnit) {
+        Objects.requireNonNull(timeUnit);
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(this.shutdowns.size());
+        for (final Runnable shutdown : this.shutdowns) {
+            futures.add(CompletableFuture.runAsync(shutdown, SHUTDOWN_EXECUTOR));
+        }
+
+        final long deadlineNanos = System.nanoTime() + timeUnit.toNanos(timeout);
+        final List<String> failedTopicNames = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException timeoutException) {
+                failedTopicNames.add(this.topicNames.get(i));
+            } catch (final ExecutionException executionException) {
+                failedTopicNames.add(this.topicNames.get(i));
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug(ExceptionUtils.getStackTrace(executionException));
+                }
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                // stop waiting, the remaining topics are still shutting down in the background
+                failedTopicNames.addAll(this.topicNames.subList(i, this.topicNames.size()));
+                break;
+            }
+        }
+        if (!failedTopicNames.isEmpty() && LOGGER.isErrorEnabled()) {
+            LOGGER.error("Action:[" + this.owner + "] topics not shut down within " + timeUnit.toMillis(timeout) + "ms:" + failedTopicNames);
+        }
+        return failedTopicNames;
+    }
+
+    /**
+     * Shut down all the added topics with the {@link #DEFAULT_TIMEOUT_MILLIS} deadline.
+     *
+     * @return the names of the topics that failed or did not shut down in time
+     */
+    final List<String> shutdown() {
+        return this.shutdown(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.rosjava_actionlib;
+
+import actionlib_tutorials.FibonacciActionResult;
+import org.junit.Test;
+import org.ros.internal.message.DefaultMessageFactory;
+import org.ros.internal.message.Message;
+import org.ros.internal.message.definition.MessageDefinitionReflectionProvider;
+import org.ros.message.MessageFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the completion of the stages of an {@link ActionFutureGroup}
+ */
+public class ActionFutureGroupTest {
+    private final MessageFactory messageFactory = new DefaultMessageFactory(new MessageDefinitionReflectionProvider());
+
+    /**
+     * A future completed by the test instead of an {@link ActionClient}
+     */
+    private static final class TestActionFuture implements ActionFuture<Message, Message, FibonacciActionResult> {
+        private final CompletableFuture<FibonacciActionResult> result = new CompletableFuture<>();
+        private volatile boolean cancelRequested = false;
+
+        @Override
+        public Message getLatestFeedback() {
+            return null;
+        }
+
+        @Override
+        public void trackFeedback() {
+        }
+
+        @Override
+        public void addFeedbackListener(final ActionClientFeedbackListener<Message> listener, final Executor executor) {
+        }
+
+        @Override
+        public ClientState getCurrentState() {
+            return this.result.isDone() ? ClientState.DONE : ClientState.ACTIVE;
+        }
+
+        @Override
+        public Future<Void> toVoidFuture() {
+            return this.result.thenApply(result -> (Void) null);
+        }
+
+        @Override
+        public Future<Boolean> toBooleanFuture() {
+            return this.result.thenApply(result -> Boolean.TRUE);
+        }
+
+        @Override
+        public CompletionStage<FibonacciActionResult> toCompletionStage() {
+            return this.result.minimalCompletionStage();
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            this.cancelRequested = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.result.isDone();
+        }
+
+        @Override
+        public FibonacciActionResult get() throws ExecutionException, InterruptedException {
+            return this.result.get();
+        }
+
+        @Override
+        public FibonacciActionResult get(final long timeout, final TimeUnit unit) throws ExecutionException, InterruptedException, TimeoutException {
+            return this.result.get(timeout, unit);
+        }
+    }
+
+    private static List<ActionFuture<Message, Message, FibonacciActionResult>> newFutures(final int size) {
+        final List<ActionFuture<Message, Message, FibonacciActionResult>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            futures.add(new TestActionFuture());
+        }
+        return futures;
+    }
+
+    private FibonacciActionResult complete(final ActionFuture<Message, Message, FibonacciActionResult> future) {
+        final FibonacciActionResult result = messageFactory.newFromType(FibonacciActionResult._TYPE);
+        ((TestActionFuture) future).result.complete(result);
+        return result;
+    }
+
+    @Test
+    public void testAllOfKeepsTheOrderOfTheGoals() {
+        final List<ActionFuture<Message, Message, FibonacciActionResult>> futures = newFutures(3);
+        final ActionFutureGroup<Message, Message, FibonacciActionResult> group = new ActionFutureGroup<>(futures);
+        assertEquals(3, group.size());
+        final CompletableFuture<List<FibonacciActionResult>> allOf = group.allOf().toCompletableFuture();
+
+        final FibonacciActionResult third = complete(futures.get(2));
+        final FibonacciActionResult first = complete(futures.get(0));
+        assertFalse(allOf.isDone());
+        final FibonacciActionResult second = complete(futures.get(1));
+
+        assertTrue(allOf.isDone());
+        final List<FibonacciActionResult> results = allOf.join();
+        assertSame(first, results.get(0));
+        assertSame(second, results.get(1));
+        assertSame(third, results.get(2));
+    }
+
+    @Test
+    public void testAnyOfCompletesWithTheFirstResult() {
+        final List<ActionFuture<Message, Message, FibonacciActionResult>> futures = newFutures(2);
+        final ActionFutureGroup<Message, Message, FibonacciActionResult> group = new ActionFutureGroup<>(futures);
+        final CompletableFuture<FibonacciActionResult> anyOf = group.anyOf().toCompletableFuture();
+        assertFalse(anyOf.isDone());
+
+        final FibonacciActionResult second = complete(futures.get(1));
+        complete(futures.get(0));
+        assertSame(second, anyOf.join());
+    }
+
+    @Test
+    public void testAllOfFailsWhenAGoalFails() {
+        final List<ActionFuture<Message, Message, FibonacciActionResult>> futures = newFutures(2);
+        final ActionFutureGroup<Message, Message, FibonacciActionResult> group = new ActionFutureGroup<>(futures);
+        final CompletableFuture<List<FibonacciActionResult>> allOf = group.allOf().toCompletableFuture();
+
+        complete(futures.get(0));
+        ((TestActionFuture) futures.get(1)).result.completeExceptionally(new TimeoutException());
+        try {
+            allOf.join();
+            fail("allOf should fail");
+        } catch (final CompletionException completionException) {
+            assertTrue(completionException.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void testCancelAll() {
+        final List<ActionFuture<Message, Message, FibonacciActionResult>> futures = newFutures(2);
+        new ActionFutureGroup<>(futures).cancelAll();
+        for (final ActionFuture<Message, Message, FibonacciActionResult> future : futures) {
+            assertTrue(((TestActionFuture) future).cancelRequested);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyGroup() {
+        new ActionFutureGroup<Message, Message, FibonacciActionResult>(Collections.emptyList());
+    }
+}
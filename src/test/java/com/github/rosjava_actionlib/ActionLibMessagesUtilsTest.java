@@ -0,0 +1,82 @@
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatus;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the cached message accessors of {@link ActionLibMessagesUtils}
+ */
+public class ActionLibMessagesUtilsTest {
+
+    /**
+     * Non public class with public accessors, similar to the generated message implementations
+     */
+    private static final class TestMessage {
+        private String id = "initial";
+        private int seq = 0;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(final String id) {
+            this.id = id;
+        }
+
+        public int getSeq() {
+            return seq;
+        }
+
+        public void setSeq(final int seq) {
+            this.seq = seq;
+        }
+    }
+
+    @Test
+    public void testGetSubMessage() {
+        final TestMessage message = new TestMessage();
+        final String id = ActionLibMessagesUtils.getSubMessageFromMessage(message, "getId");
+        assertEquals("initial", id);
+        //Second call uses the cached accessor
+        message.setId("second");
+        assertEquals("second", ActionLibMessagesUtils.getSubMessageFromMessage(message, "getId"));
+    }
+
+    @Test
+    public void testGetPrimitive() {
+        final TestMessage message = new TestMessage();
+        message.setSeq(42);
+        final int seq = ActionLibMessagesUtils.getSubMessageFromMessage(message, "getSeq");
+        assertEquals(42, seq);
+    }
+
+    @Test
+    public void testSetSubMessage() {
+        final TestMessage message = new TestMessage();
+        ActionLibMessagesUtils.setSubMessageFromMessage(message, "updated", "setId");
+        assertEquals("updated", message.getId());
+        ActionLibMessagesUtils.setSubMessageFromMessage(message, Integer.valueOf(7), "setSeq");
+        assertEquals(7, message.getSeq());
+    }
+
+    @Test
+    public void testUnknownAccessor() {
+        final TestMessage message = new TestMessage();
+        assertNull(ActionLibMessagesUtils.getSubMessageFromMessage(message, "getUnknown"));
+        ActionLibMessagesUtils.setSubMessageFromMessage(message, "value", "setUnknown");
+        assertEquals("initial", message.getId());
+    }
+
+    @Test
+    public void testTerminalGoalStatus() {
+        assertTrue(ActionLibMessagesUtils.isTerminalGoalStatus(GoalStatus.SUCCEEDED));
+        assertTrue(ActionLibMessagesUtils.isTerminalGoalStatus(GoalStatus.ABORTED));
+        assertTrue(ActionLibMessagesUtils.isTerminalGoalStatus(GoalStatus.REJECTED));
+        assertTrue(ActionLibMessagesUtils.isTerminalGoalStatus(GoalStatus.RECALLED));
+        assertTrue(ActionLibMessagesUtils.isTerminalGoalStatus(GoalStatus.PREEMPTED));
+        assertFalse(ActionLibMessagesUtils.isTerminalGoalStatus(GoalStatus.ACTIVE));
+        assertFalse(ActionLibMessagesUtils.isTerminalGoalStatus(GoalStatus.PREEMPTING));
+    }
+}
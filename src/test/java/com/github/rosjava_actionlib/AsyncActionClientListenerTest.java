@@ -0,0 +1,112 @@
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatusArray;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.internal.message.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the queueing of the {@link AsyncActionClientListener}
+ */
+public class AsyncActionClientListenerTest {
+    private final List<Runnable> submittedTasks = new ArrayList<>();
+    private final List<String> received = new ArrayList<>();
+    private ActionClientListener<Message, Message> delegate;
+
+    // Executes before each test.
+    @Before
+    public void setUp() {
+        submittedTasks.clear();
+        received.clear();
+        delegate = new ActionClientListener<Message, Message>() {
+            @Override
+            public void feedbackReceived(Message feedback) {
+                received.add("feedback");
+            }
+
+            @Override
+            public void resultReceived(Message result) {
+                received.add("result");
+            }
+
+            @Override
+            public void statusReceived(GoalStatusArray status) {
+                received.add("status");
+            }
+        };
+    }
+
+    private void runSubmittedTasks() {
+        while (!submittedTasks.isEmpty()) {
+            submittedTasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testDeliveredInOrderOnExecutor() {
+        final AsyncActionClientListener<Message, Message> listener = new AsyncActionClientListener<>(delegate, submittedTasks::add, 4, AsyncActionClientListener.OverflowPolicy.BLOCK);
+        listener.statusReceived(null);
+        listener.feedbackReceived(null);
+        listener.resultReceived(null);
+        assertTrue(received.isEmpty());
+        assertEquals(3, listener.getQueueDepth());
+        assertEquals(1, submittedTasks.size());
+
+        runSubmittedTasks();
+        assertEquals(List.of("status", "feedback", "result"), received);
+        assertEquals(0, listener.getQueueDepth());
+        assertEquals(3, listener.getDeliveredCount());
+        assertEquals(3, listener.getMaxQueueDepth());
+        assertEquals(0, listener.getDroppedCount());
+    }
+
+    @Test
+    public void testDropNewest() {
+        final AsyncActionClientListener<Message, Message> listener = new AsyncActionClientListener<>(delegate, submittedTasks::add, 2, AsyncActionClientListener.OverflowPolicy.DROP_NEWEST);
+        listener.statusReceived(null);
+        listener.feedbackReceived(null);
+        listener.statusReceived(null);
+        listener.resultReceived(null);
+        assertEquals(1, listener.getDroppedCount());
+
+        runSubmittedTasks();
+        assertEquals(List.of("status", "feedback", "result"), received);
+    }
+
+    @Test
+    public void testDropOldest() {
+        final AsyncActionClientListener<Message, Message> listener = new AsyncActionClientListener<>(delegate, submittedTasks::add, 2, AsyncActionClientListener.OverflowPolicy.DROP_OLDEST);
+        listener.statusReceived(null);
+        listener.resultReceived(null);
+        listener.feedbackReceived(null);
+        listener.feedbackReceived(null);
+        assertEquals(1, listener.getDroppedCount());
+        assertEquals(3, listener.getMaxQueueDepth());
+
+        runSubmittedTasks();
+        assertEquals(List.of("result", "feedback", "feedback"), received);
+    }
+
+    @Test
+    public void testResultsAreNeverDroppedOrBlocked() {
+        final AsyncActionClientListener<Message, Message> listener = new AsyncActionClientListener<>(delegate, submittedTasks::add, 1, AsyncActionClientListener.OverflowPolicy.BLOCK);
+        listener.feedbackReceived(null);
+        listener.resultReceived(null);
+        listener.resultReceived(null);
+        assertEquals(3, listener.getQueueDepth());
+        assertEquals(0, listener.getDroppedCount());
+
+        runSubmittedTasks();
+        assertEquals(List.of("feedback", "result", "result"), received);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new AsyncActionClientListener<>(delegate, submittedTasks::add, 0, AsyncActionClientListener.OverflowPolicy.BLOCK);
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.internal.message.Message;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the goal table of the {@link ClientGoalManager}
+ */
+public class ClientGoalManagerTest {
+    private ClientGoalManager<Message> clientGoalManager;
+
+    // Executes before each test.
+    @Before
+    public void setUp() {
+        clientGoalManager = new ClientGoalManager<>();
+    }
+
+    @Test
+    public void testNoGoal() {
+        assertEquals(ClientState.NO_GOAL, clientGoalManager.getGoalState());
+        assertNull(clientGoalManager.getLatestGoal());
+        assertFalse(clientGoalManager.hasRunningGoals());
+        assertFalse(clientGoalManager.updateStatus("unknown", GoalStatus.ACTIVE));
+    }
+
+    @Test
+    public void testGoalsAreTrackedIndependently() {
+        final ClientGoalManager.ClientGoal<Message> first = clientGoalManager.addGoal("first", null);
+        final ClientGoalManager.ClientGoal<Message> second = clientGoalManager.addGoal("second", null);
+        assertEquals(2, clientGoalManager.size());
+        assertSame(second, clientGoalManager.getLatestGoal());
+
+        assertTrue(clientGoalManager.updateStatus("first", GoalStatus.ACTIVE));
+        assertTrue(clientGoalManager.updateStatus("second", GoalStatus.PENDING));
+        assertEquals(ClientState.ACTIVE, first.getStateMachine().getState());
+        assertEquals(ClientState.PENDING, second.getStateMachine().getState());
+
+        assertTrue(clientGoalManager.updateStatus("first", GoalStatus.SUCCEEDED));
+        assertTrue(clientGoalManager.resultReceived("first"));
+        assertEquals(ClientState.DONE, first.getStateMachine().getState());
+        assertNull(clientGoalManager.getGoal("first"));
+        assertEquals(1, clientGoalManager.size());
+        assertTrue(clientGoalManager.hasRunningGoals());
+    }
+
+    @Test
+    public void testRecallGoal() {
+        final ClientGoalManager.ClientGoal<Message> clientGoal = clientGoalManager.addGoal("goal", null);
+        assertTrue(clientGoalManager.recallGoal("goal"));
+        assertEquals(ClientState.DONE, clientGoal.getStateMachine().getState());
+        assertNull(clientGoalManager.getGoal("goal"));
+        assertFalse(clientGoalManager.recallGoal("goal"));
+    }
+
+    @Test
+    public void testLatestGoalStateAfterResult() {
+        clientGoalManager.addGoal("goal", null);
+        clientGoalManager.updateStatus("goal", GoalStatus.REJECTED);
+        clientGoalManager.resultReceived("goal");
+        assertEquals(ClientState.DONE, clientGoalManager.getGoalState());
+        assertFalse(clientGoalManager.resultReceived("goal"));
+    }
+
+    @Test
+    public void testWaitingForAck() {
+        final ClientGoalManager.ClientGoal<Message> acknowledged = clientGoalManager.addGoal("acknowledged", null);
+        final ClientGoalManager.ClientGoal<Message> cancelled = clientGoalManager.addGoal("cancelled", null);
+        assertTrue(acknowledged.isWaitingForAck());
+        assertTrue(cancelled.isWaitingForAck());
+        clientGoalManager.updateStatus("acknowledged", GoalStatus.PENDING);
+        clientGoalManager.cancelGoal("cancelled");
+        assertFalse(acknowledged.isWaitingForAck());
+        assertFalse(cancelled.isWaitingForAck());
+    }
+
+    @Test
+    public void testGoalMissingFromStatusArraysIsLost() {
+        final ClientGoalManager.ClientGoal<Message> acknowledged = clientGoalManager.addGoal("acknowledged", null);
+        final ClientGoalManager.ClientGoal<Message> waiting = clientGoalManager.addGoal("waiting", null);
+        clientGoalManager.updateStatus("acknowledged", GoalStatus.ACTIVE);
+        assertTrue(clientGoalManager.statusArrayReceived(Collections.emptyList(), 2).isEmpty());
+        final List<ClientGoalManager.ClientGoal<Message>> lostGoals = clientGoalManager.statusArrayReceived(Collections.emptyList(), 2);
+        assertEquals(1, lostGoals.size());
+        assertSame(acknowledged, lostGoals.get(0));
+        assertEquals(ClientState.LOST, acknowledged.getStateMachine().getState());
+        assertNull(clientGoalManager.getGoal("acknowledged"));
+        // a goal that is not acknowledged is not expected in the status arrays
+        assertEquals(ClientState.WAITING_FOR_GOAL_ACK, waiting.getStateMachine().getState());
+    }
+
+    @Test
+    public void testGoalsAreLostWhenTheServerIsSilent() {
+        final ClientGoalManager.ClientGoal<Message> sent = clientGoalManager.addGoal("sent", null);
+        clientGoalManager.addGoal("notSent", null);
+        sent.goalSent();
+        final long sentNanos = sent.getSentNanos();
+        assertTrue(clientGoalManager.serverSilent(0, sentNanos + 10, 100).isEmpty());
+        final List<ClientGoalManager.ClientGoal<Message>> lostGoals = clientGoalManager.serverSilent(0, sentNanos + 101, 100);
+        assertEquals(1, lostGoals.size());
+        assertSame(sent, lostGoals.get(0));
+        assertNotNull(clientGoalManager.getGoal("notSent"));
+    }
+
+    @Test
+    public void testCancelGoal() {
+        final ClientGoalManager.ClientGoal<Message> first = clientGoalManager.addGoal("first", null);
+        final ClientGoalManager.ClientGoal<Message> second = clientGoalManager.addGoal("second", null);
+        assertTrue(clientGoalManager.cancelGoal("first"));
+        assertEquals(ClientState.WAITING_FOR_CANCEL_ACK, first.getStateMachine().getState());
+        assertEquals(ClientState.WAITING_FOR_GOAL_ACK, second.getStateMachine().getState());
+        assertFalse(clientGoalManager.cancelGoal("unknown"));
+        clientGoalManager.cancelAllGoals();
+        assertEquals(ClientState.WAITING_FOR_CANCEL_ACK, second.getStateMachine().getState());
+    }
+
+    @Test
+    public void testLatencyPhasesAreRecorded() {
+        final ClientGoalManager.ClientGoal<Message> goal = clientGoalManager.addGoal("goal", null);
+        goal.goalSent();
+        clientGoalManager.updateStatus("goal", GoalStatus.PENDING);
+        clientGoalManager.updateStatus("goal", GoalStatus.ACTIVE);
+        clientGoalManager.updateStatus("goal", GoalStatus.ACTIVE);
+        clientGoalManager.updateStatus("goal", GoalStatus.SUCCEEDED);
+        clientGoalManager.resultReceived("goal");
+
+        for (final GoalLatencyPhase phase : GoalLatencyPhase.values()) {
+            assertEquals(phase.name(), 1, clientGoalManager.getLatencyMetrics().snapshot(phase).getCount());
+        }
+    }
+}
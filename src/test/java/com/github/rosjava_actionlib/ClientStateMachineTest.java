@@ -127,6 +127,23 @@ public class ClientStateMachineTest {
         checkGetTransition(ClientState.WAITING_FOR_GOAL_ACK,actionlib_msgs.GoalStatus.REJECTED, expected);
     }
 
+    @Test
+    public void testTransitionToLastOfNextStates() {
+        clientStateMachine.setState(ClientState.WAITING_FOR_GOAL_ACK);
+        clientStateMachine.transition(actionlib_msgs.GoalStatus.SUCCEEDED);
+        assertEquals(ClientState.WAITING_FOR_RESULT, clientStateMachine.getState());
+    }
+
+    @Test
+    public void testTransitionWithUnknownGoalStatus() {
+        clientStateMachine.setState(ClientState.ACTIVE);
+        clientStateMachine.transition(actionlib_msgs.GoalStatus.LOST);
+        clientStateMachine.transition(-1);
+        clientStateMachine.transition(100);
+        assertEquals(ClientState.ACTIVE, clientStateMachine.getState());
+        assertTrue(clientStateMachine.getTransitionInteger(100).isEmpty());
+    }
+
     private final void checkGetTransition(ClientState initialState, int goalStatus, List<ClientState> expected) {
         clientStateMachine.setState(initialState);
         List<ClientState> output = clientStateMachine.getTransitionInteger(goalStatus);
@@ -0,0 +1,104 @@
+package com.github.rosjava_actionlib;
+
+import actionlib_tutorials.FibonacciActionFeedback;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.internal.message.DefaultMessageFactory;
+import org.ros.internal.message.definition.MessageDefinitionReflectionProvider;
+import org.ros.message.MessageFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the conflation of the {@link ConflatingFeedbackListener}
+ */
+public class ConflatingFeedbackListenerTest {
+    private final MessageFactory messageFactory = new DefaultMessageFactory(new MessageDefinitionReflectionProvider());
+    private final List<Runnable> submittedTasks = new ArrayList<>();
+    private final List<FibonacciActionFeedback> received = new ArrayList<>();
+    private ConflatingFeedbackListener<FibonacciActionFeedback> listener;
+
+    // Executes before each test.
+    @Before
+    public void setUp() {
+        submittedTasks.clear();
+        received.clear();
+        listener = new ConflatingFeedbackListener<>(received::add, submittedTasks::add);
+    }
+
+    private FibonacciActionFeedback newFeedback(final String goalId) {
+        final FibonacciActionFeedback feedback = messageFactory.newFromType(FibonacciActionFeedback._TYPE);
+        feedback.getStatus().getGoalId().setId(goalId);
+        return feedback;
+    }
+
+    private void runSubmittedTasks() {
+        while (!submittedTasks.isEmpty()) {
+            submittedTasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testOnlyTheNewestFeedbackIsDelivered() {
+        final FibonacciActionFeedback first = newFeedback("goal");
+        final FibonacciActionFeedback second = newFeedback("goal");
+        final FibonacciActionFeedback other = newFeedback("other");
+        listener.feedbackReceived(first);
+        listener.feedbackReceived(other);
+        listener.feedbackReceived(second);
+        assertEquals(1, listener.getConflatedCount());
+
+        runSubmittedTasks();
+        assertEquals(2, received.size());
+        assertTrue(received.contains(second));
+        assertTrue(received.contains(other));
+        assertFalse(received.contains(first));
+        assertEquals(2, listener.getDeliveredCount());
+    }
+
+    @Test
+    public void testDeliveredOnTheExecutor() {
+        listener.feedbackReceived(newFeedback("goal"));
+        assertTrue(received.isEmpty());
+        assertEquals(1, submittedTasks.size());
+        //The drain is submitted once while it is pending
+        listener.feedbackReceived(newFeedback("other"));
+        assertEquals(1, submittedTasks.size());
+
+        runSubmittedTasks();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testNoFeedbackIsLostOnceTheListenerIsIdle() {
+        for (int i = 0; i < 3; i++) {
+            final FibonacciActionFeedback feedback = newFeedback("goal");
+            listener.feedbackReceived(feedback);
+            runSubmittedTasks();
+            assertSame(feedback, received.get(received.size() - 1));
+        }
+        assertEquals(3, received.size());
+        assertEquals(0, listener.getConflatedCount());
+        assertTrue(submittedTasks.isEmpty());
+    }
+
+    @Test
+    public void testFeedbackReceivedWhileDrainingIsDelivered() {
+        final List<FibonacciActionFeedback> delivered = new ArrayList<>();
+        final FibonacciActionFeedback late = newFeedback("goal");
+        listener = new ConflatingFeedbackListener<>(feedback -> {
+            delivered.add(feedback);
+            if (delivered.size() == 1) {
+                listener.feedbackReceived(late);
+            }
+        }, submittedTasks::add);
+        listener.feedbackReceived(newFeedback("goal"));
+
+        runSubmittedTasks();
+        assertEquals(2, delivered.size());
+        assertSame(late, delivered.get(1));
+    }
+}
@@ -27,6 +27,8 @@ import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -93,6 +95,30 @@ class FutureBasedClient extends AbstractNodeMain implements ActionClientListener
     }
 
 
+    /**
+     * @param orders
+     *
+     * @return the futures of the fibonacci of each order, sent as one batch
+     */
+    public final ActionFutureGroup<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> invokeAll(final int... orders) {
+        final List<FibonacciActionGoal> goalMessages = new ArrayList<>(orders.length);
+        for (final int order : orders) {
+            final FibonacciActionGoal goalMessage = (FibonacciActionGoal) actionClient.newGoalMessage();
+            goalMessage.getGoal().setOrder(order);
+            goalMessages.add(goalMessage);
+        }
+        LOGGER.trace("Sending goals for orders:" + Arrays.toString(orders));
+        return actionClient.sendGoals(goalMessages);
+    }
+
+
+    /**
+     * Disconnect the action client, the futures of the goals that are not done are cancelled
+     */
+    public final void disconnect() {
+        this.actionClient.disconnect();
+    }
+
     @Override
     public void onStart(final ConnectedNode node) {
         this.actionClient = new ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult>(node, "/fibonacci", FibonacciActionGoal._TYPE, FibonacciActionFeedback._TYPE, FibonacciActionResult._TYPE);
@@ -26,11 +26,13 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.ros.RosCore;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -127,6 +129,30 @@ public class FutureBasedClientTest {
         }
     }
 
+    /**
+     * Demonstrate sending a batch of goals and waiting for the first and for all of the results
+     */
+    @Test
+    public void testSendGoals() {
+        try {
+            final ActionFutureGroup<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> group = this.futureBasedClient.invokeAll(3, 4, 5);
+            Assert.assertEquals(3, group.size());
+
+            final FibonacciActionResult anyResult = group.anyOf().toCompletableFuture().get(30, TimeUnit.SECONDS);
+            Assert.assertNotNull(anyResult);
+
+            final List<FibonacciActionResult> results = group.allOf().toCompletableFuture().get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(3, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(group.getFutures().get(i).toCompletionStage().toCompletableFuture().get(), results.get(i));
+                Assert.assertEquals(ClientState.DONE, group.getFutures().get(i).getCurrentState());
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
     @After
     public void after() {
         try {
@@ -0,0 +1,59 @@
+package com.github.rosjava_actionlib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the expiration and cancellation of the {@link HashedWheelTimer} timeouts
+ */
+public class HashedWheelTimerTest {
+    private HashedWheelTimer hashedWheelTimer;
+
+    // Executes before each test.
+    @Before
+    public void setUp() {
+        hashedWheelTimer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void tearDown() {
+        hashedWheelTimer.stop();
+    }
+
+    @Test
+    public void testTimeoutsExpireAfterTheirDelay() throws InterruptedException {
+        final CountDownLatch expired = new CountDownLatch(2);
+        final long startNanos = System.nanoTime();
+        hashedWheelTimer.schedule(expired::countDown, 5, TimeUnit.MILLISECONDS);
+        //Longer than a round of the wheel
+        hashedWheelTimer.schedule(expired::countDown, 30, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotRun() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger(0);
+        final HashedWheelTimer.Timeout cancelled = hashedWheelTimer.schedule(runs::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        final CountDownLatch expired = new CountDownLatch(1);
+        final HashedWheelTimer.Timeout timeout = hashedWheelTimer.schedule(expired::countDown, 20, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertTrue(timeout.isExpired());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleAfterStop() {
+        hashedWheelTimer.stop();
+        hashedWheelTimer.schedule(() -> {
+        }, 1, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.rosjava_actionlib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the admission of goals by the {@link InFlightGoalWindow}
+ */
+public class InFlightGoalWindowTest {
+    private InFlightGoalWindow inFlightGoalWindow;
+
+    // Executes before each test.
+    @Before
+    public void setUp() {
+        inFlightGoalWindow = new InFlightGoalWindow();
+    }
+
+    @Test
+    public void testUnlimitedByDefault() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(inFlightGoalWindow.tryAcquire("goal" + i));
+        }
+        assertEquals(100, inFlightGoalWindow.getInFlightCount());
+    }
+
+    @Test
+    public void testFailFastWhenFull() {
+        inFlightGoalWindow.setMaxInFlightGoals(2);
+        assertTrue(inFlightGoalWindow.tryAcquire("first"));
+        assertTrue(inFlightGoalWindow.tryAcquire("second"));
+        assertFalse(inFlightGoalWindow.tryAcquire("third"));
+
+        assertTrue(inFlightGoalWindow.release("first"));
+        assertFalse(inFlightGoalWindow.release("first"));
+        assertTrue(inFlightGoalWindow.tryAcquire("third"));
+    }
+
+    @Test
+    public void testEnqueuedGoalsAreSentInOrderWhenSlotsFree() {
+        final List<String> sent = new ArrayList<>();
+        inFlightGoalWindow.setMaxInFlightGoals(1);
+        inFlightGoalWindow.acquireOrEnqueue("first", () -> sent.add("first"));
+        inFlightGoalWindow.acquireOrEnqueue("second", () -> sent.add("second"));
+        inFlightGoalWindow.acquireOrEnqueue("third", () -> sent.add("third"));
+        assertEquals(List.of("first"), sent);
+        assertEquals(2, inFlightGoalWindow.getPendingCount());
+        //Pending goals are admitted before new ones
+        assertFalse(inFlightGoalWindow.tryAcquire("other"));
+
+        inFlightGoalWindow.release("first");
+        assertEquals(List.of("first", "second"), sent);
+
+        inFlightGoalWindow.setMaxInFlightGoals(InFlightGoalWindow.UNLIMITED);
+        assertEquals(List.of("first", "second", "third"), sent);
+        assertEquals(0, inFlightGoalWindow.getPendingCount());
+    }
+
+    @Test
+    public void testBlockedAcquireIsReleased() throws InterruptedException {
+        inFlightGoalWindow.setMaxInFlightGoals(1);
+        inFlightGoalWindow.acquire("first");
+        final Thread thread = new Thread(() -> {
+            try {
+                inFlightGoalWindow.acquire("second");
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        inFlightGoalWindow.release("first");
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertEquals(1, inFlightGoalWindow.getInFlightCount());
+    }
+
+    @Test
+    public void testRemovedPendingGoalsAreNotSent() {
+        final List<String> sent = new ArrayList<>();
+        inFlightGoalWindow.setMaxInFlightGoals(1);
+        inFlightGoalWindow.acquireOrEnqueue("first", () -> sent.add("first"));
+        inFlightGoalWindow.acquireOrEnqueue("second", () -> sent.add("second"));
+        inFlightGoalWindow.acquireOrEnqueue("third", () -> sent.add("third"));
+        assertTrue(inFlightGoalWindow.removePending("second"));
+        assertFalse(inFlightGoalWindow.removePending("second"));
+        assertFalse(inFlightGoalWindow.removePending("first"));
+
+        inFlightGoalWindow.release("first");
+        assertEquals(List.of("first", "third"), sent);
+
+        inFlightGoalWindow.acquireOrEnqueue("fourth", () -> sent.add("fourth"));
+        inFlightGoalWindow.acquireOrEnqueue("fifth", () -> sent.add("fifth"));
+        assertEquals(List.of("fourth", "fifth"), inFlightGoalWindow.removeAllPending());
+        assertEquals(0, inFlightGoalWindow.getPendingCount());
+        inFlightGoalWindow.release("third");
+        assertEquals(List.of("first", "third"), sent);
+    }
+
+    @Test
+    public void testTimedAcquire() throws InterruptedException {
+        inFlightGoalWindow.setMaxInFlightGoals(1);
+        assertTrue(inFlightGoalWindow.acquire("first", TimeUnit.MILLISECONDS.toNanos(10)));
+        assertFalse(inFlightGoalWindow.acquire("second", TimeUnit.MILLISECONDS.toNanos(10)));
+        assertEquals(1, inFlightGoalWindow.getInFlightCount());
+        inFlightGoalWindow.release("first");
+        assertTrue(inFlightGoalWindow.acquire("second", TimeUnit.MILLISECONDS.toNanos(10)));
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.rosjava_actionlib;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the buckets and percentiles of the {@link LatencyHistogram}
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentileNanos(99));
+        assertEquals(0, snapshot.getMeanNanos(), 0);
+    }
+
+    @Test
+    public void testBucketsCoverValues() {
+        final long[] values = {0, 1, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE};
+        for (final long value : values) {
+            final int index = LatencyHistogram.indexOf(value);
+            final long highest = LatencyHistogram.highestEquivalentValue(index);
+            assertTrue("value:" + value, highest >= value);
+            assertTrue("value:" + value, highest - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            latencyHistogram.recordNanos(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        final LatencyHistogram.Snapshot snapshot = latencyHistogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), snapshot.getMaxNanos());
+        assertEquals(500, snapshot.getValueAtPercentile(50, TimeUnit.MICROSECONDS), 500 / LatencyHistogram.SUB_BUCKET_COUNT + 1);
+        assertEquals(990, snapshot.getValueAtPercentile(99, TimeUnit.MICROSECONDS), 990 / LatencyHistogram.SUB_BUCKET_COUNT + 1);
+        assertEquals(1000, snapshot.getValueAtPercentile(100, TimeUnit.MICROSECONDS));
+    }
+}
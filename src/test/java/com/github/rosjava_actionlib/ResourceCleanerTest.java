@@ -0,0 +1,48 @@
+package com.github.rosjava_actionlib;
+
+import org.junit.Test;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the {@link ResourceCleaner} releases resources once and that its listeners do not keep their owner reachable
+ */
+public class ResourceCleanerTest {
+
+    @Test
+    public void testCleanRunsTheActionOnce() {
+        final AtomicInteger runs = new AtomicInteger(0);
+        final Object owner = new Object();
+        final Cleaner.Cleanable cleanable = ResourceCleaner.register(owner, runs::incrementAndGet);
+        cleanable.clean();
+        cleanable.clean();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testActionRunsWhenTheOwnerIsUnreachable() throws InterruptedException {
+        final CountDownLatch cleaned = new CountDownLatch(1);
+        ResourceCleaner.register(new Object(), cleaned::countDown);
+        for (int i = 0; i < 50 && cleaned.getCount() > 0; i++) {
+            System.gc();
+            cleaned.await(100, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(0, cleaned.getCount());
+    }
+
+    @Test
+    public void testWeakMessageListener() {
+        final List<String> owner = new ArrayList<>();
+        final ResourceCleaner.WeakMessageListener<List<String>, String> listener = new ResourceCleaner.WeakMessageListener<>(owner, List::add);
+        listener.onNewMessage("message");
+        assertEquals(1, owner.size());
+        assertEquals("message", owner.get(0));
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatus;
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import eu.test.utils.RosExecutor;
+import eu.test.utils.TestProperties;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.RosCore;
+import org.ros.message.Duration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests that the {@link ActionServer} publishes its status on every change, and slows the heartbeat down while idle
+ */
+public class ServerStatusPublishTest {
+    private static final Logger LOGGER = LogManager.getLogger(ServerStatusPublishTest.class);
+
+    private static final TestProperties testProperties = TestProperties.getFromDefaultFile();
+
+    private static final String ROS_HOST_IP = testProperties.getRosHostIp();
+    private static final int ROS_MASTER_URI_PORT = testProperties.getRosMasterUriPort();
+    private static final String ROS_MASTER_URI = testProperties.getRosMasterUri();
+    private static final long TIMEOUT_SECONDS = 30;
+    // the defaults of the ActionServer
+    private static final long STATUS_TICK_PERIOD_MILLIS = 200;
+    private static final long IDLE_STATUS_PERIOD_MILLIS = 1000;
+    private RosCore rosCore = null;
+
+    private FutureBasedClient futureBasedClient = null;
+    private SimpleFibonacciServer simpleFibonacciServer = null;
+    private StatusRecorder statusRecorder = null;
+    private final RosExecutor rosExecutor = new RosExecutor(ROS_HOST_IP);
+
+    @Before
+    public void before() {
+        try {
+            this.rosCore = RosCore.newPublic(ROS_MASTER_URI_PORT);
+            this.rosCore.start();
+            this.rosCore.awaitStart(testProperties.getRosCoreStartWaitMillis(), TimeUnit.MILLISECONDS);
+
+            this.simpleFibonacciServer = new SimpleFibonacciServer();
+            this.futureBasedClient = new FutureBasedClient();
+            this.statusRecorder = new StatusRecorder();
+
+            this.rosExecutor.startNodeMain(this.simpleFibonacciServer, this.simpleFibonacciServer.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            this.simpleFibonacciServer.waitForStart();
+            this.rosExecutor.startNodeMain(this.statusRecorder, this.statusRecorder.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            this.statusRecorder.waitForStart();
+            this.rosExecutor.startNodeMain(this.futureBasedClient, this.futureBasedClient.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            final boolean serverStarted = this.futureBasedClient.waitForServerConnection(TIMEOUT_SECONDS);
+            Assume.assumeTrue("Server Not Started", serverStarted);
+        } catch (final Exception er3) {
+            LOGGER.error(ExceptionUtils.getStackTrace(er3));
+            Assume.assumeNoException(er3);
+        }
+    }
+
+    /**
+     * With a heartbeat too slow to matter, the final status of a batch of goals is still published right after it changes,
+     * and the transitions are coalesced into fewer status messages than transitions.
+     */
+    @Test
+    public void testStatusPublishedOnChange() {
+        try {
+            final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer = this.simpleFibonacciServer.getActionServer();
+            actionServer.setIdleStatusPeriod(Duration.fromMillis(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS * 2)));
+            // let the heartbeat of the default idle period pass
+            Thread.sleep(2 * IDLE_STATUS_PERIOD_MILLIS);
+            this.statusRecorder.clear();
+
+            final int goals = 10;
+            final long startNanos = System.nanoTime();
+            final ActionFutureGroup<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> group = this.futureBasedClient.invokeAll(new int[goals]);
+            final List<FibonacciActionResult> results = group.allOf().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            final long resultsNanos = System.nanoTime();
+
+            StatusRecorder.Record finalRecord = null;
+            final long deadline = System.currentTimeMillis() + IDLE_STATUS_PERIOD_MILLIS;
+            while (finalRecord == null && System.currentTimeMillis() < deadline) {
+                for (final StatusRecorder.Record record : this.statusRecorder.getRecords()) {
+                    if (this.allSucceeded(record, results)) {
+                        finalRecord = record;
+                        break;
+                    }
+                }
+                Thread.sleep(10);
+            }
+            Assert.assertNotNull("Final status not published on change", finalRecord);
+
+            // each goal is published once when it is received and at most once when it succeeds, plus the heartbeats while the goals are active,
+            // publishing every transition would need at least three messages per goal
+            final long heartbeats = TimeUnit.NANOSECONDS.toMillis(resultsNanos - startNanos) / STATUS_TICK_PERIOD_MILLIS + 1;
+            final int statusMessages = this.statusRecorder.getRecords().size();
+            Assert.assertTrue("Status messages:" + statusMessages, statusMessages <= 2 * goals + heartbeats);
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * The status is published every tick while a goal is active, and every idle period once all the goals are terminal
+     */
+    @Test
+    public void testIdleHeartbeat() {
+        try {
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> activeFuture = this.futureBasedClient.invoke(SimpleFibonacciServer.PREEMPTABLE_ORDER);
+            final long activeDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+            while (!ClientState.ACTIVE.equals(activeFuture.getCurrentState()) && System.currentTimeMillis() < activeDeadline) {
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(ClientState.ACTIVE, activeFuture.getCurrentState());
+
+            this.statusRecorder.clear();
+            Thread.sleep(2 * IDLE_STATUS_PERIOD_MILLIS);
+            final List<StatusRecorder.Record> activeRecords = this.statusRecorder.getRecords();
+            Assert.assertTrue("Status messages while active:" + activeRecords.size(), activeRecords.size() >= 2 * IDLE_STATUS_PERIOD_MILLIS / STATUS_TICK_PERIOD_MILLIS / 2);
+            Assert.assertTrue(this.maxIntervalMillis(activeRecords) < 2 * STATUS_TICK_PERIOD_MILLIS);
+
+            activeFuture.cancel(true);
+            Assert.assertEquals(GoalStatus.PREEMPTED, activeFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getStatus().getStatus());
+            Thread.sleep(IDLE_STATUS_PERIOD_MILLIS / 2);
+
+            this.statusRecorder.clear();
+            Thread.sleep(4 * IDLE_STATUS_PERIOD_MILLIS);
+            final List<StatusRecorder.Record> idleRecords = this.statusRecorder.getRecords();
+            Assert.assertTrue("Status messages while idle:" + idleRecords.size(), idleRecords.size() >= 2 && idleRecords.size() <= 6);
+            Assert.assertTrue(this.minIntervalMillis(idleRecords) > IDLE_STATUS_PERIOD_MILLIS - 2 * STATUS_TICK_PERIOD_MILLIS);
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * @param record
+     * @param results
+     *
+     * @return true if the record reports every goal of the results as succeeded
+     */
+    private final boolean allSucceeded(final StatusRecorder.Record record, final List<FibonacciActionResult> results) {
+        for (final FibonacciActionResult result : results) {
+            final Byte status = record.goalStatuses.get(result.getStatus().getGoalId().getId());
+            if (status == null || status != GoalStatus.SUCCEEDED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param records
+     *
+     * @return the longest interval between consecutive records
+     */
+    private final long maxIntervalMillis(final List<StatusRecorder.Record> records) {
+        long max = 0;
+        for (int i = 1; i < records.size(); i++) {
+            max = Math.max(max, TimeUnit.NANOSECONDS.toMillis(records.get(i).receivedNanos - records.get(i - 1).receivedNanos));
+        }
+        return max;
+    }
+
+    /**
+     * @param records
+     *
+     * @return the shortest interval between consecutive records
+     */
+    private final long minIntervalMillis(final List<StatusRecorder.Record> records) {
+        long min = Long.MAX_VALUE;
+        for (int i = 1; i < records.size(); i++) {
+            min = Math.min(min, TimeUnit.NANOSECONDS.toMillis(records.get(i).receivedNanos - records.get(i - 1).receivedNanos));
+        }
+        return min;
+    }
+
+    @After
+    public void after() {
+        try {
+            rosExecutor.stopNodeMain(simpleFibonacciServer);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+        try {
+            rosExecutor.stopNodeMain(statusRecorder);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+        try {
+            rosExecutor.stopNodeMain(futureBasedClient);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+
+        try {
+            if (this.rosExecutor != null) {
+                this.rosExecutor.stopAllNodesAndClose();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        try {
+            if (this.rosCore != null) {
+                this.rosCore.shutdown();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        this.futureBasedClient = null;
+        this.simpleFibonacciServer = null;
+        this.statusRecorder = null;
+        this.rosCore = null;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import com.google.common.base.Stopwatch;
+import org.ros.message.Duration;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node with two {@link ActionClient}s of the same action, which share one {@link ActionClientTransport}
+ *
+ * @author Spyros Koukas
+ */
+class SharedTransportClient extends AbstractNodeMain {
+    private volatile ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> firstClient = null;
+    private volatile ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> secondClient = null;
+    private volatile boolean isStarted = false;
+
+    @Override
+    public GraphName getDefaultNodeName() {
+        return GraphName.of("fibonacci_shared_transport_client");
+    }
+
+    @Override
+    public void onStart(final ConnectedNode node) {
+        this.firstClient = new ActionClient<>(node, "/fibonacci", FibonacciActionGoal._TYPE, FibonacciActionFeedback._TYPE, FibonacciActionResult._TYPE);
+        this.secondClient = new ActionClient<>(node, "/fibonacci", FibonacciActionGoal._TYPE, FibonacciActionFeedback._TYPE, FibonacciActionResult._TYPE);
+        this.isStarted = true;
+    }
+
+    /**
+     * @param seconds the maximum time to wait for the clients to start and connect to the server
+     *
+     * @return true if both clients are connected
+     */
+    public final boolean waitForServerConnection(final double seconds) {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        while (!this.isStarted && stopwatch.elapsed(TimeUnit.SECONDS) <= seconds) {
+            try {
+                Thread.sleep(100);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        final Duration serverTimeout = new Duration(Math.max(0.1, seconds - stopwatch.elapsed(TimeUnit.SECONDS)));
+        return this.isStarted
+                && this.firstClient.waitForActionServerToStart(serverTimeout)
+                && this.secondClient.waitForActionServerToStart(serverTimeout);
+    }
+
+    /**
+     * Getter for firstClient
+     *
+     * @return firstClient
+     **/
+    public final ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> getFirstClient() {
+        return this.firstClient;
+    }
+
+    /**
+     * Getter for secondClient
+     *
+     * @return secondClient
+     **/
+    public final ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> getSecondClient() {
+        return this.secondClient;
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import eu.test.utils.RosExecutor;
+import eu.test.utils.TestProperties;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.RosCore;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the {@link ActionClient}s of the same node and action share one {@link ActionClientTransport}
+ * and that each message received by the transport reaches every client.
+ */
+public class SharedTransportTest {
+    private static final Logger LOGGER = LogManager.getLogger(SharedTransportTest.class);
+
+    private static final TestProperties testProperties = TestProperties.getFromDefaultFile();
+
+    private static final String ROS_HOST_IP = testProperties.getRosHostIp();
+    private static final int ROS_MASTER_URI_PORT = testProperties.getRosMasterUriPort();
+    private static final String ROS_MASTER_URI = testProperties.getRosMasterUri();
+    private RosCore rosCore = null;
+
+    private SharedTransportClient sharedTransportClient = null;
+    private SimpleServer simpleServer = null;
+    private final RosExecutor rosExecutor = new RosExecutor(ROS_HOST_IP);
+
+    @Before
+    public void before() {
+        try {
+            this.rosCore = RosCore.newPublic(ROS_MASTER_URI_PORT);
+            this.rosCore.start();
+            this.rosCore.awaitStart(testProperties.getRosCoreStartWaitMillis(), TimeUnit.MILLISECONDS);
+
+            this.simpleServer = new SimpleServer();
+            this.sharedTransportClient = new SharedTransportClient();
+
+            this.rosExecutor.startNodeMain(this.simpleServer, this.simpleServer.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            this.simpleServer.waitForStart();
+            this.rosExecutor.startNodeMain(this.sharedTransportClient, this.sharedTransportClient.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            final boolean serverStarted = this.sharedTransportClient.waitForServerConnection(30);
+            Assume.assumeTrue("Server Not Started", serverStarted);
+        } catch (final Exception er3) {
+            LOGGER.error(ExceptionUtils.getStackTrace(er3));
+            Assume.assumeNoException(er3);
+        }
+    }
+
+    @Test
+    public void testClientsShareTheTransport() {
+        final ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> firstClient = this.sharedTransportClient.getFirstClient();
+        final ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> secondClient = this.sharedTransportClient.getSecondClient();
+        final ActionClientTransport<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> transport = firstClient.getTransport();
+        assertSame(transport, secondClient.getTransport());
+        assertEquals(2, transport.getClientCount());
+
+        firstClient.close();
+        assertEquals(1, transport.getClientCount());
+        secondClient.close();
+        assertEquals(0, transport.getClientCount());
+    }
+
+    @Test
+    public void testMessagesAreFannedOutToEveryClient() throws Exception {
+        final ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> firstClient = this.sharedTransportClient.getFirstClient();
+        final ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> secondClient = this.sharedTransportClient.getSecondClient();
+        final CompletableFuture<FibonacciActionResult> secondClientResult = new CompletableFuture<>();
+        final ActionClientResultListener<FibonacciActionResult> secondClientListener = secondClientResult::complete;
+        secondClient.addListener(secondClientListener);
+
+        final FibonacciActionGoal goalMessage = firstClient.newGoalMessage();
+        goalMessage.getGoal().setOrder(3);
+        final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> resultFuture = firstClient.sendGoal(goalMessage);
+
+        final FibonacciActionResult result = resultFuture.get(30, TimeUnit.SECONDS);
+        final FibonacciActionResult fannedOutResult = secondClientResult.get(30, TimeUnit.SECONDS);
+        assertEquals(result.getStatus().getGoalId().getId(), fannedOutResult.getStatus().getGoalId().getId());
+
+        //The remaining client keeps receiving after the other one is closed
+        firstClient.close();
+        final FibonacciActionGoal secondGoalMessage = secondClient.newGoalMessage();
+        secondGoalMessage.getGoal().setOrder(3);
+        assertNotNull(secondClient.sendGoal(secondGoalMessage).get(30, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void after() {
+        try {
+            rosExecutor.stopNodeMain(simpleServer);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+        try {
+            rosExecutor.stopNodeMain(sharedTransportClient);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+
+        try {
+            if (this.rosExecutor != null) {
+                this.rosExecutor.stopAllNodesAndClose();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        try {
+            if (this.rosCore != null) {
+                this.rosCore.shutdown();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        this.sharedTransportClient = null;
+        this.simpleServer = null;
+        this.rosCore = null;
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatus;
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import eu.test.utils.RosExecutor;
+import eu.test.utils.TestProperties;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.RosCore;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link SimpleActionServer} end to end through {@link SimpleFibonacciServer} and {@link FutureBasedClient}
+ */
+public class SimpleActionServerClientTest {
+    private static final Logger LOGGER = LogManager.getLogger(SimpleActionServerClientTest.class);
+
+    private static final TestProperties testProperties = TestProperties.getFromDefaultFile();
+
+    private static final String ROS_HOST_IP = testProperties.getRosHostIp();
+    private static final int ROS_MASTER_URI_PORT = testProperties.getRosMasterUriPort();
+    private static final String ROS_MASTER_URI = testProperties.getRosMasterUri();
+    private static final long TIMEOUT_SECONDS = 30;
+    private RosCore rosCore = null;
+
+    private FutureBasedClient futureBasedClient = null;
+    private SimpleFibonacciServer simpleFibonacciServer = null;
+    private final RosExecutor rosExecutor = new RosExecutor(ROS_HOST_IP);
+
+    @Before
+    public void before() {
+        try {
+            this.rosCore = RosCore.newPublic(ROS_MASTER_URI_PORT);
+            this.rosCore.start();
+            this.rosCore.awaitStart(testProperties.getRosCoreStartWaitMillis(), TimeUnit.MILLISECONDS);
+
+            this.simpleFibonacciServer = new SimpleFibonacciServer();
+            this.futureBasedClient = new FutureBasedClient();
+
+            this.rosExecutor.startNodeMain(this.simpleFibonacciServer, this.simpleFibonacciServer.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            this.simpleFibonacciServer.waitForStart();
+            this.rosExecutor.startNodeMain(this.futureBasedClient, this.futureBasedClient.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            final boolean serverStarted = this.futureBasedClient.waitForServerConnection(TIMEOUT_SECONDS);
+            Assume.assumeTrue("Server Not Started", serverStarted);
+        } catch (final Exception er3) {
+            LOGGER.error(ExceptionUtils.getStackTrace(er3));
+            Assume.assumeNoException(er3);
+        }
+    }
+
+    /**
+     * The goal is accepted, becomes active and the result with the sequence is published as succeeded
+     */
+    @Test
+    public void testSucceeded() {
+        try {
+            final int order = 5;
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> resultFuture = this.futureBasedClient.invoke(order);
+            Assert.assertTrue("Goal did not become active", this.waitForActive(resultFuture));
+
+            final FibonacciActionResult result = resultFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertEquals(GoalStatus.SUCCEEDED, result.getStatus().getStatus());
+            Assert.assertFalse(result.getStatus().getGoalId().getId().isEmpty());
+            Assert.assertArrayEquals(new int[]{0, 1, 1, 2, 3, 5, 8}, result.getResult().getSequence());
+            Assert.assertEquals(ClientState.DONE, resultFuture.getCurrentState());
+            Assert.assertFalse(resultFuture.isCancelled());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * The feedback of a goal is received only once it is tracked
+     */
+    @Test
+    public void testTrackFeedback() {
+        try {
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> untrackedFuture = this.futureBasedClient.invoke(3);
+            untrackedFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertNull(untrackedFuture.getLatestFeedback());
+
+            // long enough for the feedback subscriber to connect
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> trackedFuture = this.futureBasedClient.invoke(20);
+            trackedFuture.trackFeedback();
+            final FibonacciActionResult result = trackedFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertEquals(GoalStatus.SUCCEEDED, result.getStatus().getStatus());
+            Assert.assertNotNull(trackedFuture.getLatestFeedback());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * A goal callback that throws publishes the result as aborted
+     */
+    @Test
+    public void testAborted() {
+        try {
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> resultFuture = this.futureBasedClient.invoke(-1);
+
+            final FibonacciActionResult result = resultFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertEquals(GoalStatus.ABORTED, result.getStatus().getStatus());
+            Assert.assertFalse(result.getStatus().getGoalId().getId().isEmpty());
+            Assert.assertEquals(ClientState.DONE, resultFuture.getCurrentState());
+            Assert.assertFalse(resultFuture.isCancelled());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * Cancelling an active goal stops the goal callback and publishes the result as preempted
+     */
+    @Test
+    public void testPreempted() {
+        try {
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> resultFuture = this.futureBasedClient.invoke(SimpleFibonacciServer.PREEMPTABLE_ORDER);
+            Assert.assertTrue("Goal did not become active", this.waitForActive(resultFuture));
+            resultFuture.cancel(true);
+
+            final FibonacciActionResult result = resultFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertEquals(GoalStatus.PREEMPTED, result.getStatus().getStatus());
+            Assert.assertFalse(result.getStatus().getGoalId().getId().isEmpty());
+            Assert.assertEquals(ClientState.DONE, resultFuture.getCurrentState());
+            Assert.assertTrue(resultFuture.isCancelled());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * A goal cancelled right after it is sent is preempted or recalled, it never succeeds
+     */
+    @Test
+    public void testCancelledBeforeExecution() {
+        try {
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> resultFuture = this.futureBasedClient.invoke(SimpleFibonacciServer.PREEMPTABLE_ORDER);
+            resultFuture.cancel(true);
+
+            final FibonacciActionResult result = resultFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            final byte status = result.getStatus().getStatus();
+            Assert.assertTrue("Unexpected status:" + status, status == GoalStatus.PREEMPTED || status == GoalStatus.RECALLED);
+            Assert.assertTrue(resultFuture.isCancelled());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * Disconnecting the client with a goal in flight cancels its future, so that the threads waiting for the result return
+     */
+    @Test
+    public void testDisconnectWithGoalInFlight() {
+        try {
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> resultFuture = this.futureBasedClient.invoke(SimpleFibonacciServer.PREEMPTABLE_ORDER);
+            Assert.assertTrue("Goal did not become active", this.waitForActive(resultFuture));
+            this.futureBasedClient.disconnect();
+
+            Assert.assertTrue(resultFuture.isDone());
+            Assert.assertTrue(resultFuture.isCancelled());
+            try {
+                resultFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                Assert.fail("The future of a disconnected client should be cancelled");
+            } catch (final CancellationException cancellationException) {
+                LOGGER.trace("Cancelled:" + cancellationException.getMessage());
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * @param resultFuture
+     *
+     * @return true if the goal became active before the timeout
+     */
+    private final boolean waitForActive(final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> resultFuture) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (System.currentTimeMillis() < deadline) {
+            final ClientState clientState = resultFuture.getCurrentState();
+            if (ClientState.ACTIVE.equals(clientState)) {
+                return true;
+            }
+            if (resultFuture.isDone()) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return false;
+    }
+
+    @After
+    public void after() {
+        try {
+            rosExecutor.stopNodeMain(simpleFibonacciServer);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+        try {
+            rosExecutor.stopNodeMain(futureBasedClient);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+
+        try {
+            if (this.rosExecutor != null) {
+                this.rosExecutor.stopAllNodesAndClose();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        try {
+            if (this.rosCore != null) {
+                this.rosCore.shutdown();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        this.futureBasedClient = null;
+        this.simpleFibonacciServer = null;
+        this.rosCore = null;
+    }
+}
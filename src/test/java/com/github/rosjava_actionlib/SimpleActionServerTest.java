@@ -0,0 +1,47 @@
+package com.github.rosjava_actionlib;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the executors created by the {@link SimpleActionServer}
+ */
+public class SimpleActionServerTest {
+
+    @Test
+    public void testExecutorTypesRunGoalsConcurrently() throws InterruptedException {
+        for (final SimpleActionServer.ExecutorType executorType : SimpleActionServer.ExecutorType.values()) {
+            final ExecutorService executorService = executorType.create(2);
+            try {
+                final CountDownLatch started = new CountDownLatch(2);
+                final CountDownLatch finished = new CountDownLatch(2);
+                for (int i = 0; i < 2; i++) {
+                    executorService.execute(() -> {
+                        started.countDown();
+                        try {
+                            // both goals must be running at the same time
+                            if (started.await(5, TimeUnit.SECONDS)) {
+                                finished.countDown();
+                            }
+                        } catch (final InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                }
+                assertTrue(executorType.name(), finished.await(5, TimeUnit.SECONDS));
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFixedThreadPoolNeedsPositiveParallelism() {
+        SimpleActionServer.ExecutorType.FIXED_THREAD_POOL.create(0);
+    }
+}
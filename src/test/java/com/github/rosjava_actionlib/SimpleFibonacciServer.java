@@ -0,0 +1,121 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fibonacci server based on the {@link SimpleActionServer}.
+ * Negative orders are aborted, orders from {@link #PREEMPTABLE_ORDER} run until they are cancelled,
+ * the rest succeed after publishing a feedback for every step.
+ *
+ * @author Spyros Koukas
+ */
+class SimpleFibonacciServer extends AbstractNodeMain {
+    static final int PREEMPTABLE_ORDER = 1000;
+    static final long STEP_MILLIS = 100;
+    private static final long PREEMPTABLE_MAX_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static Log LOGGER = LogFactory.getLog(SimpleFibonacciServer.class);
+    private SimpleActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> simpleActionServer = null;
+    private volatile boolean isStarted = false;
+
+    @Override
+    public GraphName getDefaultNodeName() {
+        return GraphName.of("fibonacci_simple_server");
+    }
+
+    /**
+     * Wait until the server is created
+     */
+    public void waitForStart() {
+        while (!this.isStarted) {
+            this.sleep(5);
+        }
+    }
+
+    /**
+     * @return the action server of the simple action server
+     */
+    public ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> getActionServer() {
+        return this.simpleActionServer.getActionServer();
+    }
+
+    @Override
+    public void onStart(final ConnectedNode node) {
+        this.simpleActionServer = new SimpleActionServer<>(node, "/fibonacci", FibonacciActionGoal._TYPE, FibonacciActionFeedback._TYPE, FibonacciActionResult._TYPE
+                , SimpleFibonacciServer::execute, SimpleActionServer.ExecutorType.FIXED_THREAD_POOL, 2);
+        this.isStarted = true;
+    }
+
+    @Override
+    public void onShutdown(final Node node) {
+        if (this.simpleActionServer != null) {
+            this.simpleActionServer.close();
+        }
+    }
+
+    /**
+     * @param goal
+     * @param context
+     *
+     * @throws InterruptedException
+     */
+    private static final void execute(final FibonacciActionGoal goal, final SimpleActionServer.GoalContext<FibonacciActionFeedback, FibonacciActionResult> context) throws InterruptedException {
+        final int order = goal.getGoal().getOrder();
+        LOGGER.trace("Executing goal:" + context.getGoalId() + " for order:" + order);
+        if (order < 0) {
+            throw new IllegalArgumentException("Negative order:" + order);
+        }
+        if (order >= PREEMPTABLE_ORDER) {
+            final long deadline = System.currentTimeMillis() + PREEMPTABLE_MAX_MILLIS;
+            while (!context.isCancelRequested() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return;
+        }
+        final int[] sequence = new int[order + 2];
+        sequence[0] = 0;
+        sequence[1] = 1;
+        for (int i = 2; i < sequence.length && !context.isCancelRequested(); i++) {
+            sequence[i] = sequence[i - 1] + sequence[i - 2];
+            final FibonacciActionFeedback feedback = context.newFeedbackMessage();
+            feedback.getFeedback().setSequence(Arrays.copyOf(sequence, i + 1));
+            context.publishFeedback(feedback);
+            Thread.sleep(STEP_MILLIS);
+        }
+        context.getResult().getResult().setSequence(sequence);
+    }
+
+    private void sleep(final long msec) {
+        try {
+            Thread.sleep(msec);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatus;
+import actionlib_msgs.GoalStatusArray;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.topic.Subscriber;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the status messages of an action server, by default of "/fibonacci", with the {@link System#nanoTime()} they were received
+ *
+ * @author Spyros Koukas
+ */
+class StatusRecorder extends AbstractNodeMain {
+    /**
+     * A received status message, as a map from goal id to status
+     */
+    static final class Record {
+        final long receivedNanos;
+        final Map<String, Byte> goalStatuses;
+
+        private Record(final long receivedNanos, final Map<String, Byte> goalStatuses) {
+            this.receivedNanos = receivedNanos;
+            this.goalStatuses = goalStatuses;
+        }
+    }
+
+    private final String statusTopic;
+    private final List<Record> records = new ArrayList<>();
+    private volatile boolean isStarted = false;
+
+    StatusRecorder() {
+        this("/fibonacci/status");
+    }
+
+    /**
+     * @param statusTopic the status topic of the action server
+     */
+    StatusRecorder(final String statusTopic) {
+        this.statusTopic = statusTopic;
+    }
+
+    @Override
+    public GraphName getDefaultNodeName() {
+        return GraphName.of("fibonacci_status_recorder");
+    }
+
+    /**
+     * Wait until the node subscribes to the status topic
+     */
+    public void waitForStart() throws InterruptedException {
+        while (!this.isStarted) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Override
+    public void onStart(final ConnectedNode node) {
+        final Subscriber<GoalStatusArray> subscriber = node.newSubscriber(this.statusTopic, GoalStatusArray._TYPE);
+        subscriber.addMessageListener(this::statusReceived);
+        this.isStarted = true;
+    }
+
+    /**
+     * @param status
+     */
+    private void statusReceived(final GoalStatusArray status) {
+        final long receivedNanos = System.nanoTime();
+        final Map<String, Byte> goalStatuses = new HashMap<>();
+        for (final GoalStatus goalStatus : status.getStatusList()) {
+            goalStatuses.put(goalStatus.getGoalId().getId(), goalStatus.getStatus());
+        }
+        synchronized (this.records) {
+            this.records.add(new Record(receivedNanos, goalStatuses));
+        }
+    }
+
+    /**
+     * @return the status messages received so far
+     */
+    public List<Record> getRecords() {
+        synchronized (this.records) {
+            return new ArrayList<>(this.records);
+        }
+    }
+
+    /**
+     * Forget the status messages received so far
+     */
+    public void clear() {
+        synchronized (this.records) {
+            this.records.clear();
+        }
+    }
+}
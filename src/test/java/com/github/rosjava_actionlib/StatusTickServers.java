@@ -0,0 +1,111 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalID;
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import org.ros.message.Duration;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node with several idle action servers, each with its own status tick period.
+ * The idle status period of each server is its tick period, so that the status is published every tick.
+ *
+ * @author Spyros Koukas
+ */
+class StatusTickServers extends AbstractNodeMain implements ActionServerListener<FibonacciActionGoal> {
+    private final long[] statusTickPeriodsMillis;
+    private final List<ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult>> actionServers = new ArrayList<>();
+    private volatile boolean isStarted = false;
+
+    /**
+     * @param statusTickPeriodsMillis the status tick period of each server
+     */
+    StatusTickServers(final long... statusTickPeriodsMillis) {
+        this.statusTickPeriodsMillis = statusTickPeriodsMillis;
+    }
+
+    @Override
+    public GraphName getDefaultNodeName() {
+        return GraphName.of("status_tick_servers");
+    }
+
+    /**
+     * @param index
+     *
+     * @return the action name of the server with the given index
+     */
+    static String getActionName(final int index) {
+        return "/status_tick_" + index;
+    }
+
+    /**
+     * Wait until the servers are created
+     */
+    public void waitForStart() throws InterruptedException {
+        while (!this.isStarted) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Override
+    public void onStart(final ConnectedNode node) {
+        for (int i = 0; i < this.statusTickPeriodsMillis.length; i++) {
+            final Duration statusTickPeriod = Duration.fromMillis(this.statusTickPeriodsMillis[i]);
+            final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer = new ActionServer<>(node, this, getActionName(i)
+                    , FibonacciActionGoal._TYPE, FibonacciActionFeedback._TYPE, FibonacciActionResult._TYPE, statusTickPeriod);
+            actionServer.setIdleStatusPeriod(statusTickPeriod);
+            this.actionServers.add(actionServer);
+        }
+        this.isStarted = true;
+    }
+
+    @Override
+    public void onShutdown(final Node node) {
+        this.closeAll();
+    }
+
+    /**
+     * Finish all the servers
+     */
+    public void closeAll() {
+        for (final ActionServer<?, ?, ?> actionServer : this.actionServers) {
+            actionServer.close();
+        }
+    }
+
+    @Override
+    public void goalReceived(final FibonacciActionGoal goal) {
+    }
+
+    @Override
+    public void cancelReceived(final GoalID id) {
+    }
+
+    @Override
+    public boolean acceptGoal(final FibonacciActionGoal goal) {
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import eu.test.utils.RosExecutor;
+import eu.test.utils.TestProperties;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.RosCore;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the status ticks of several {@link ActionServer}s, which share a single thread
+ */
+public class StatusTickTest {
+    private static final Logger LOGGER = LogManager.getLogger(StatusTickTest.class);
+
+    private static final TestProperties testProperties = TestProperties.getFromDefaultFile();
+
+    private static final String ROS_HOST_IP = testProperties.getRosHostIp();
+    private static final int ROS_MASTER_URI_PORT = testProperties.getRosMasterUriPort();
+    private static final String ROS_MASTER_URI = testProperties.getRosMasterUri();
+    private static final long[] STATUS_TICK_PERIODS_MILLIS = {100, 300, 200};
+    private RosCore rosCore = null;
+
+    private int scheduledStatusTicksBefore = 0;
+    private StatusTickServers statusTickServers = null;
+    private StatusRecorder fastStatusRecorder = null;
+    private StatusRecorder slowStatusRecorder = null;
+    private final RosExecutor rosExecutor = new RosExecutor(ROS_HOST_IP);
+
+    @Before
+    public void before() {
+        try {
+            this.rosCore = RosCore.newPublic(ROS_MASTER_URI_PORT);
+            this.rosCore.start();
+            this.rosCore.awaitStart(testProperties.getRosCoreStartWaitMillis(), TimeUnit.MILLISECONDS);
+
+            this.scheduledStatusTicksBefore = ActionServer.getScheduledStatusTicks();
+            this.statusTickServers = new StatusTickServers(STATUS_TICK_PERIODS_MILLIS);
+            this.fastStatusRecorder = new StatusRecorder(StatusTickServers.getActionName(0) + "/status");
+            this.slowStatusRecorder = new StatusRecorder(StatusTickServers.getActionName(1) + "/status");
+
+            this.rosExecutor.startNodeMain(this.statusTickServers, this.statusTickServers.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            this.statusTickServers.waitForStart();
+            this.rosExecutor.startNodeMain(this.fastStatusRecorder, "fast_status_recorder", ROS_MASTER_URI);
+            this.fastStatusRecorder.waitForStart();
+            this.rosExecutor.startNodeMain(this.slowStatusRecorder, "slow_status_recorder", ROS_MASTER_URI);
+            this.slowStatusRecorder.waitForStart();
+        } catch (final Exception er3) {
+            LOGGER.error(ExceptionUtils.getStackTrace(er3));
+            Assume.assumeNoException(er3);
+        }
+    }
+
+    /**
+     * The ticks of all the servers are scheduled on a single thread
+     */
+    @Test
+    public void testServersShareOneTickThread() {
+        Assert.assertEquals(STATUS_TICK_PERIODS_MILLIS.length, ActionServer.getScheduledStatusTicks() - this.scheduledStatusTicksBefore);
+        final long tickThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> "ActionServer-status-tick".equals(thread.getName()))
+                .count();
+        Assert.assertEquals(1, tickThreads);
+    }
+
+    /**
+     * The ticks of finished servers are removed from the executor
+     */
+    @Test
+    public void testTicksRemovedOnClose() {
+        this.statusTickServers.closeAll();
+        Assert.assertEquals(this.scheduledStatusTicksBefore, ActionServer.getScheduledStatusTicks());
+    }
+
+    /**
+     * Each server publishes its status with its own period
+     */
+    @Test
+    public void testConfiguredPeriodHonored() {
+        try {
+            // let the subscribers connect
+            Thread.sleep(1000);
+            this.fastStatusRecorder.clear();
+            this.slowStatusRecorder.clear();
+            Thread.sleep(3000);
+
+            final double fastPeriodMillis = this.meanIntervalMillis(this.fastStatusRecorder.getRecords());
+            final double slowPeriodMillis = this.meanIntervalMillis(this.slowStatusRecorder.getRecords());
+            Assert.assertEquals(STATUS_TICK_PERIODS_MILLIS[0], fastPeriodMillis, STATUS_TICK_PERIODS_MILLIS[0] * 0.3);
+            Assert.assertEquals(STATUS_TICK_PERIODS_MILLIS[1], slowPeriodMillis, STATUS_TICK_PERIODS_MILLIS[1] * 0.3);
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * @param records
+     *
+     * @return the mean interval between consecutive records
+     */
+    private final double meanIntervalMillis(final List<StatusRecorder.Record> records) {
+        Assert.assertTrue("Status messages:" + records.size(), records.size() >= 2);
+        final long totalNanos = records.get(records.size() - 1).receivedNanos - records.get(0).receivedNanos;
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos) / (double) (records.size() - 1);
+    }
+
+    @After
+    public void after() {
+        try {
+            rosExecutor.stopNodeMain(statusTickServers);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+        try {
+            rosExecutor.stopNodeMain(fastStatusRecorder);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+        try {
+            rosExecutor.stopNodeMain(slowStatusRecorder);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+
+        try {
+            if (this.rosExecutor != null) {
+                this.rosExecutor.stopAllNodesAndClose();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        try {
+            if (this.rosCore != null) {
+                this.rosCore.shutdown();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        this.statusTickServers = null;
+        this.fastStatusRecorder = null;
+        this.slowStatusRecorder = null;
+        this.rosCore = null;
+    }
+}
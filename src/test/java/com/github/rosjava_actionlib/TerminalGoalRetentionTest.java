@@ -0,0 +1,231 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rosjava_actionlib;
+
+import actionlib_msgs.GoalStatus;
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import eu.test.utils.RosExecutor;
+import eu.test.utils.TestProperties;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.RosCore;
+import org.ros.message.Duration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the eviction of the terminal goals tracked by the {@link ActionServer}
+ */
+public class TerminalGoalRetentionTest {
+    private static final Logger LOGGER = LogManager.getLogger(TerminalGoalRetentionTest.class);
+
+    private static final TestProperties testProperties = TestProperties.getFromDefaultFile();
+
+    private static final String ROS_HOST_IP = testProperties.getRosHostIp();
+    private static final int ROS_MASTER_URI_PORT = testProperties.getRosMasterUriPort();
+    private static final String ROS_MASTER_URI = testProperties.getRosMasterUri();
+    private static final long TIMEOUT_SECONDS = 30;
+    private RosCore rosCore = null;
+
+    private FutureBasedClient futureBasedClient = null;
+    private SimpleFibonacciServer simpleFibonacciServer = null;
+    private final RosExecutor rosExecutor = new RosExecutor(ROS_HOST_IP);
+
+    @Before
+    public void before() {
+        try {
+            this.rosCore = RosCore.newPublic(ROS_MASTER_URI_PORT);
+            this.rosCore.start();
+            this.rosCore.awaitStart(testProperties.getRosCoreStartWaitMillis(), TimeUnit.MILLISECONDS);
+
+            this.simpleFibonacciServer = new SimpleFibonacciServer();
+            this.futureBasedClient = new FutureBasedClient();
+
+            this.rosExecutor.startNodeMain(this.simpleFibonacciServer, this.simpleFibonacciServer.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            this.simpleFibonacciServer.waitForStart();
+            this.rosExecutor.startNodeMain(this.futureBasedClient, this.futureBasedClient.getDefaultNodeName().toString(), ROS_MASTER_URI);
+            final boolean serverStarted = this.futureBasedClient.waitForServerConnection(TIMEOUT_SECONDS);
+            Assume.assumeTrue("Server Not Started", serverStarted);
+        } catch (final Exception er3) {
+            LOGGER.error(ExceptionUtils.getStackTrace(er3));
+            Assume.assumeNoException(er3);
+        }
+    }
+
+    /**
+     * A terminal goal is still tracked, with its terminal status, within the retention window
+     */
+    @Test
+    public void testTerminalGoalRetainedWithinWindow() {
+        try {
+            final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer = this.simpleFibonacciServer.getActionServer();
+            actionServer.setTerminalGoalRetention(Duration.fromMillis(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS)), 0);
+
+            final String goalId = this.invokeAndGetGoalId(1);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(2));
+            Assert.assertEquals(GoalStatus.SUCCEEDED, actionServer.getGoalState(goalId));
+            Assert.assertEquals(1, actionServer.getTrackedGoals());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * A terminal goal is no longer tracked after the retention window
+     */
+    @Test
+    public void testTerminalGoalEvictedAfterWindow() {
+        try {
+            final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer = this.simpleFibonacciServer.getActionServer();
+            actionServer.setTerminalGoalRetention(Duration.fromMillis(200), 0);
+
+            final String goalId = this.invokeAndGetGoalId(1);
+            // the terminal goals are evicted by the status ticks, the idle heartbeat is 1 second
+            Assert.assertTrue("Goal not evicted", this.waitForTrackedGoals(actionServer, 0));
+            Assert.assertEquals(-100, actionServer.getGoalState(goalId));
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * Updating a goal after it is evicted is ignored
+     */
+    @Test
+    public void testSetSucceedAfterEviction() {
+        try {
+            final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer = this.simpleFibonacciServer.getActionServer();
+            actionServer.setTerminalGoalRetention(Duration.fromMillis(0), 0);
+
+            final String goalId = this.invokeAndGetGoalId(1);
+            Assert.assertTrue("Goal not evicted", this.waitForTrackedGoals(actionServer, 0));
+
+            actionServer.setSucceed(goalId);
+            actionServer.setAbort(goalId);
+            actionServer.setPreempt(goalId);
+            final FibonacciActionResult result = actionServer.newResultMessage();
+            actionServer.setGoalStatus(result.getStatus(), goalId);
+            Assert.assertEquals(-100, actionServer.getGoalState(goalId));
+            Assert.assertEquals(0, actionServer.getTrackedGoals());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * An active goal is never evicted, even when the terminal goals are evicted immediately
+     */
+    @Test
+    public void testActiveGoalNeverEvicted() {
+        try {
+            final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer = this.simpleFibonacciServer.getActionServer();
+            actionServer.setTerminalGoalRetention(Duration.fromMillis(0), 1);
+
+            final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> activeFuture = this.futureBasedClient.invoke(SimpleFibonacciServer.PREEMPTABLE_ORDER);
+            for (int i = 0; i < 3; i++) {
+                this.invokeAndGetGoalId(1);
+            }
+            Assert.assertTrue("Terminal goals not evicted", this.waitForTrackedGoals(actionServer, 1));
+            Thread.sleep(TimeUnit.SECONDS.toMillis(2));
+            Assert.assertEquals(1, actionServer.getTrackedGoals());
+            Assert.assertFalse(activeFuture.isDone());
+            Assert.assertEquals(ClientState.ACTIVE, activeFuture.getCurrentState());
+
+            // the preempted result can be sent only while the goal is tracked
+            activeFuture.cancel(true);
+            final FibonacciActionResult result = activeFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertEquals(GoalStatus.PREEMPTED, result.getStatus().getStatus());
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+            Assert.fail(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * @param order
+     *
+     * @return the id of the goal, after its result is received
+     */
+    private final String invokeAndGetGoalId(final int order) throws Exception {
+        final FibonacciActionResult result = this.futureBasedClient.invoke(order).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertEquals(GoalStatus.SUCCEEDED, result.getStatus().getStatus());
+        return result.getStatus().getGoalId().getId();
+    }
+
+    /**
+     * @param actionServer
+     * @param trackedGoals
+     *
+     * @return true if the server tracks the given number of goals before the timeout
+     */
+    private final boolean waitForTrackedGoals(final ActionServer<?, ?, ?> actionServer, final int trackedGoals) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (System.currentTimeMillis() < deadline) {
+            if (actionServer.getTrackedGoals() == trackedGoals) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    @After
+    public void after() {
+        try {
+            rosExecutor.stopNodeMain(simpleFibonacciServer);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+        try {
+            rosExecutor.stopNodeMain(futureBasedClient);
+        } catch (final Exception e2) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e2));
+        }
+
+        try {
+            if (this.rosExecutor != null) {
+                this.rosExecutor.stopAllNodesAndClose();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        try {
+            if (this.rosCore != null) {
+                this.rosCore.shutdown();
+            }
+        } catch (final Exception e) {
+            LOGGER.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        this.futureBasedClient = null;
+        this.simpleFibonacciServer = null;
+        this.rosCore = null;
+    }
+}